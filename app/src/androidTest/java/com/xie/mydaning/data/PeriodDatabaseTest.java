@@ -0,0 +1,55 @@
+package com.xie.mydaning.data;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证进程内只存在一个 Room 数据库实例（一个连接池）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class PeriodDatabaseTest {
+    @Test
+    public void onlyOneDatabaseInstanceExists() {
+        Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        PeriodDatabase first = PeriodDatabase.getDatabase(appContext);
+        PeriodDatabase second = PeriodDatabase.getDatabase(appContext.getApplicationContext());
+
+        assertSame(first, second);
+        assertSame(first.getOpenHelper(), second.getOpenHelper());
+        assertSame(first.getInvalidationTracker(), second.getInvalidationTracker());
+    }
+
+    @Test
+    public void legacyDatabaseClassIsGone() {
+        try {
+            Class.forName("com.xie.mydaning.data.AppDatabase");
+            fail("AppDatabase 不应再存在，否则会对同一个文件再开一套连接池");
+        } catch (ClassNotFoundException expected) {
+            // 预期行为
+        }
+    }
+
+    @Test
+    public void queriesShareOneExecutorAndUseWal() {
+        Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        PeriodDatabase database = PeriodDatabase.getDatabase(appContext);
+
+        assertSame(PeriodDatabase.databaseExecutor, database.getQueryExecutor());
+
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        try (Cursor cursor = db.query("PRAGMA journal_mode")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("wal", cursor.getString(0).toLowerCase());
+        }
+    }
+}
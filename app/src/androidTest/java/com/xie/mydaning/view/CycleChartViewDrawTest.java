@@ -0,0 +1,215 @@
+package com.xie.mydaning.view;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.xie.mydaning.R;
+import com.xie.mydaning.utils.CycleSeries;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在真机上对比 CycleChartView 和原来 MPAndroidChart LineChart 的首帧耗时、分配，
+ * 并确认滚动重绘时 onDraw 不分配对象。结果用 adb logcat -s CycleChartViewDrawTest 查看。
+ */
+@RunWith(AndroidJUnit4.class)
+public class CycleChartViewDrawTest {
+    private static final String TAG = "CycleChartViewDrawTest";
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    private static final int CYCLES = 1_000;
+    private static final int RUNS = 7;
+    private static final int SCROLL_FRAMES = 200;
+
+    private Context context;
+    private Canvas canvas;
+    private int[] starts;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        starts = new int[CYCLES + 1];
+        for (int i = 1; i <= CYCLES; i++) {
+            starts[i] = starts[i - 1] + 26 + i % 6;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void firstFrameAgainstLineChart() {
+        // 各预热一次，类加载和 JIT 不算进任何一方
+        drawCycleChart();
+        drawLineChart();
+
+        long[] cycleNanos = new long[RUNS];
+        long[] lineNanos = new long[RUNS];
+        int cycleObjects = 0;
+        int lineObjects = 0;
+        long cycleBytes = 0;
+        long lineBytes = 0;
+        for (int run = 0; run < RUNS; run++) {
+            // 两边交替跑，避免温度、频率变化只落在一方
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            long start = SystemClock.elapsedRealtimeNanos();
+            drawCycleChart();
+            cycleNanos[run] = SystemClock.elapsedRealtimeNanos() - start;
+            Debug.stopAllocCounting();
+            cycleObjects = Debug.getThreadAllocCount();
+            cycleBytes = Debug.getThreadAllocSize();
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            start = SystemClock.elapsedRealtimeNanos();
+            drawLineChart();
+            lineNanos[run] = SystemClock.elapsedRealtimeNanos() - start;
+            Debug.stopAllocCounting();
+            lineObjects = Debug.getThreadAllocCount();
+            lineBytes = Debug.getThreadAllocSize();
+        }
+
+        Log.i(TAG, "首帧（整理数据、创建、布局、绘制）中位数 CycleChartView " + median(cycleNanos) / 1_000
+                + " us，LineChart " + median(lineNanos) / 1_000 + " us");
+        Log.i(TAG, "首帧分配 CycleChartView " + cycleObjects + " 个 / " + cycleBytes
+                + " B，LineChart " + lineObjects + " 个 / " + lineBytes + " B");
+        assertTrue(cycleObjects < lineObjects);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void scrolledRedrawsDoNotAllocate() {
+        CycleChartView chart = layout(new CycleChartView(context));
+        int[] lengths = new int[CYCLES];
+        for (int i = 0; i < CYCLES; i++) {
+            lengths[i] = starts[i + 1] - starts[i];
+        }
+        chart.setCycles(lengths, CYCLES);
+        chart.setForecast(29);
+        chart.draw(canvas);
+
+        // 断言只统计 onDraw 本身，整次 draw 的分配另外记录下来和 LineChart 对照
+        Debug.resetThreadAllocCount();
+        for (int i = 0; i < SCROLL_FRAMES; i++) {
+            chart.scrollChartBy(-37f);
+            Debug.startAllocCounting();
+            chart.onDraw(canvas);
+            Debug.stopAllocCounting();
+        }
+        int allocations = Debug.getThreadAllocCount();
+        Log.i(TAG, SCROLL_FRAMES + " 次滚动重绘 CycleChartView.onDraw 分配对象 " + allocations + " 个");
+        assertEquals(0, allocations);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < SCROLL_FRAMES; i++) {
+                chart.scrollChartBy(37f);
+                chart.draw(canvas);
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        Log.i(TAG, SCROLL_FRAMES + " 次滚动重绘 CycleChartView.draw 分配对象 " + Debug.getThreadAllocCount() + " 个");
+
+        // 同样的拖动落到 LineChart 上，作为对照只记录不断言
+        LineChart lineChart = drawLineChart();
+        Matrix matrix = new Matrix();
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < SCROLL_FRAMES; i++) {
+                matrix.set(lineChart.getViewPortHandler().getMatrixTouch());
+                matrix.postTranslate(37f, 0f);
+                lineChart.getViewPortHandler().refresh(matrix, lineChart, false);
+                lineChart.draw(canvas);
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        Log.i(TAG, SCROLL_FRAMES + " 次滚动重绘 LineChart.draw 分配对象 " + Debug.getThreadAllocCount() + " 个");
+    }
+
+    /**
+     * 按历史页默认的概览路径出第一帧：同步序列、取概览点、布局、绘制。
+     */
+    private CycleChartView drawCycleChart() {
+        CycleSeries series = new CycleSeries();
+        series.sync(starts, starts.length);
+        CycleChartView chart = layout(new CycleChartView(context));
+        CycleSeries.Points points = series.points(CycleSeries.levelForSpan(series.span()), chart.getOverviewCapacity());
+        chart.setOverview(points.x, points.y, points.count, series.lastStart());
+        chart.setForecast(29);
+        chart.draw(canvas);
+        return chart;
+    }
+
+    /**
+     * 按替换前历史页的配置出第一帧：每个周期一个 Entry，整条折线画满一屏。
+     */
+    private LineChart drawLineChart() {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < CYCLES; i++) {
+            entries.add(new Entry(i, starts[i + 1] - starts[i]));
+        }
+        LineChart chart = new LineChart(context);
+        chart.getDescription().setEnabled(false);
+        chart.setTouchEnabled(true);
+        chart.setDragEnabled(true);
+        chart.setScaleEnabled(false);
+        chart.setPinchZoom(false);
+        chart.setDrawGridBackground(false);
+        XAxis xAxis = chart.getXAxis();
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setDrawGridLines(false);
+        chart.getAxisLeft().setDrawGridLines(false);
+        chart.getAxisRight().setEnabled(false);
+        chart.getLegend().setEnabled(false);
+
+        LineDataSet dataSet = new LineDataSet(entries, "周期");
+        dataSet.setColor(context.getColor(R.color.primary_color));
+        dataSet.setLineWidth(3f);
+        dataSet.setCircleColor(context.getColor(R.color.primary_color));
+        dataSet.setCircleRadius(5f);
+        dataSet.setDrawValues(false);
+        chart.setData(new LineData(dataSet));
+        layout(chart);
+        chart.draw(canvas);
+        return chart;
+    }
+
+    private static <V extends View> V layout(V view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        return view;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -11,6 +11,9 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.xie.mydaning.ui.HistoryFragment;
@@ -19,7 +22,15 @@ import com.xie.mydaning.ui.RecordFragment;
 import com.xie.mydaning.ui.SettingsFragment;
 import com.xie.mydaning.utils.PermissionHelper;
 
+import java.util.function.Supplier;
+
 public class MainActivity extends AppCompatActivity {
+    static final String TAG_HOME = "home";
+    static final String TAG_RECORD = "record";
+    static final String TAG_HISTORY = "history";
+    static final String TAG_SETTINGS = "settings";
+    private static final String[] TAB_TAGS = {TAG_HOME, TAG_RECORD, TAG_HISTORY, TAG_SETTINGS};
+    
     private BottomNavigationView bottomNavigation;
     private HomeFragment homeFragment;
     private RecordFragment recordFragment;
@@ -43,38 +54,39 @@ public class MainActivity extends AppCompatActivity {
         
         bottomNavigation = findViewById(R.id.bottom_navigation);
         
-        // 创建Fragment实例
-        homeFragment = new HomeFragment();
-        recordFragment = new RecordFragment();
-        historyFragment = new HistoryFragment();
-        settingsFragment = new SettingsFragment();
+        // Fragment 实例：重建时沿用 FragmentManager 恢复的那一份，否则新建
+        homeFragment = findOrCreate(TAG_HOME, HomeFragment::new);
+        recordFragment = findOrCreate(TAG_RECORD, RecordFragment::new);
+        historyFragment = findOrCreate(TAG_HISTORY, HistoryFragment::new);
+        settingsFragment = findOrCreate(TAG_SETTINGS, SettingsFragment::new);
         
         // 默认显示首页
         if (savedInstanceState == null) {
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.fragment_container, homeFragment)
-                    .commit();
+            showTab(homeFragment, TAG_HOME);
         }
         
         // 底部导航监听
         bottomNavigation.setOnItemSelectedListener(item -> {
             Fragment selectedFragment = null;
+            String tag = null;
             
             int itemId = item.getItemId();
             if (itemId == R.id.nav_home) {
                 selectedFragment = homeFragment;
+                tag = TAG_HOME;
             } else if (itemId == R.id.nav_record) {
                 selectedFragment = recordFragment;
+                tag = TAG_RECORD;
             } else if (itemId == R.id.nav_statistics) {
                 selectedFragment = historyFragment;
+                tag = TAG_HISTORY;
             } else if (itemId == R.id.nav_settings) {
                 selectedFragment = settingsFragment;
+                tag = TAG_SETTINGS;
             }
             
             if (selectedFragment != null) {
-                getSupportFragmentManager().beginTransaction()
-                        .replace(R.id.fragment_container, selectedFragment)
-                        .commit();
+                showTab(selectedFragment, tag);
                 return true;
             }
             
@@ -82,6 +94,34 @@ public class MainActivity extends AppCompatActivity {
         });
     }
     
+    @SuppressWarnings("unchecked")
+    private <T extends Fragment> T findOrCreate(String tag, Supplier<T> factory) {
+        Fragment existing = getSupportFragmentManager().findFragmentByTag(tag);
+        return existing != null ? (T) existing : factory.get();
+    }
+    
+    /**
+     * 切换标签：其他标签 hide 并限制在 STARTED（视图保留、onPause 已调用），目标标签第一次显示时才 add。
+     * 标签页的观察者跟随 {@link com.xie.mydaning.ui.TabFragment#getTabLifecycleOwner()}，隐藏期间暂停。
+     */
+    private void showTab(Fragment target, String tag) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        for (String other : TAB_TAGS) {
+            Fragment fragment = fragmentManager.findFragmentByTag(other);
+            if (fragment != null && fragment != target && !fragment.isHidden()) {
+                transaction.hide(fragment).setMaxLifecycle(fragment, Lifecycle.State.STARTED);
+            }
+        }
+        if (target.isAdded()) {
+            transaction.show(target);
+        } else {
+            transaction.add(R.id.fragment_container, target, tag);
+        }
+        // 立即执行，连续点击时下一次切换能看到这次 add 的 Fragment
+        transaction.setMaxLifecycle(target, Lifecycle.State.RESUMED).commitNow();
+    }
+    
     public void switchToHome() {
         bottomNavigation.setSelectedItemId(R.id.nav_home);
     }
@@ -1,7 +1,11 @@
 package com.xie.mydaning;
 
 import android.app.Application;
+import android.content.res.Configuration;
 
+import androidx.annotation.NonNull;
+
+import com.xie.mydaning.utils.DateUtils;
 import com.xie.mydaning.utils.NotificationHelper;
 
 public class PeriodApplication extends Application {
@@ -11,5 +15,12 @@ public class PeriodApplication extends Application {
         // 初始化通知渠道，确保强提醒可用
         NotificationHelper.ensureChannels(this);
     }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // 语言可能变了，已格式化的日期文字作废
+        DateUtils.onLocaleChanged();
+    }
 }
 
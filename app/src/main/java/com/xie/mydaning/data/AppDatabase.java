@@ -1,30 +0,0 @@
-package com.xie.mydaning.data;
-
-import android.content.Context;
-
-import androidx.room.Database;
-import androidx.room.Room;
-import androidx.room.RoomDatabase;
-import androidx.room.TypeConverters;
-
-@Database(entities = {PeriodRecord.class}, version = 1, exportSchema = false)
-@TypeConverters({DateConverter.class})
-public abstract class AppDatabase extends RoomDatabase {
-    public abstract PeriodRecordDao periodRecordDao();
-    
-    private static volatile AppDatabase INSTANCE;
-    
-    public static AppDatabase getDatabase(final Context context) {
-        if (INSTANCE == null) {
-            synchronized (AppDatabase.class) {
-                if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            AppDatabase.class, "period_database")
-                            .build();
-                }
-            }
-        }
-        return INSTANCE;
-    }
-}
-
@@ -0,0 +1,151 @@
+package com.xie.mydaning.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * 历史记录的分页数据源，按 (date, id) 倒序做键集分页。
+ *
+ * 每页从上一页边界记录的 (date, id) 接着查，翻到多深都只读本页在 date 索引上的那一段，
+ * 不像 OFFSET 那样越往后越慢。period_records 有写入时数据源整体失效，Pager 以当前
+ * 可见位置为准只重新加载附近一页，其余页等滚动到时再读。
+ */
+public class HistoryPagingSource extends ListenableFuturePagingSource<HistoryPagingSource.Key, PeriodRecord> {
+
+    /** 分页边界：某条记录的 (date, id)。 */
+    public static final class Key {
+        final long date;
+        final long id;
+
+        Key(long date, long id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        static Key of(PeriodRecord record) {
+            return new Key(record.date.getTime(), record.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return date == other.date && id == other.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(date) * 31 + Long.hashCode(id);
+        }
+    }
+
+    private final PeriodDatabase database;
+    private final PeriodDao periodDao;
+    private final long fromDate;
+    private final AtomicBoolean observing = new AtomicBoolean();
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("period_records") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            invalidate();
+        }
+    };
+
+    /**
+     * @param fromDate 只分页 date 不早于此时刻（毫秒）的记录
+     */
+    HistoryPagingSource(PeriodDatabase database, long fromDate) {
+        this.database = database;
+        this.periodDao = database.periodDao();
+        this.fromDate = fromDate;
+        registerInvalidatedCallback(() -> {
+            if (observing.get()) {
+                database.getQueryExecutor().execute(
+                        () -> database.getInvalidationTracker().removeObserver(observer));
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Key, PeriodRecord>> loadFuture(@NonNull LoadParams<Key> params) {
+        ListenableFutureTask<LoadResult<Key, PeriodRecord>> task = ListenableFutureTask.create(() -> load(params));
+        database.getQueryExecutor().execute(task);
+        return task;
+    }
+
+    private LoadResult<Key, PeriodRecord> load(LoadParams<Key> params) {
+        // 第一次加载时才注册失效通知，保证在后台线程上做
+        if (!getInvalid() && observing.compareAndSet(false, true)) {
+            database.getInvalidationTracker().addObserver(observer);
+        }
+
+        Key key = params.getKey();
+        int limit = params.getLoadSize();
+        List<PeriodRecord> records;
+        Key prevKey;
+        Key nextKey;
+        try {
+            if (params instanceof LoadParams.Prepend) {
+                records = periodDao.loadHistoryAfter(fromDate, key.date, key.id, limit);
+                Collections.reverse(records);
+                prevKey = records.size() < limit ? null : Key.of(records.get(0));
+                nextKey = records.isEmpty() ? null : Key.of(records.get(records.size() - 1));
+            } else {
+                if (params instanceof LoadParams.Append) {
+                    records = periodDao.loadHistoryBefore(fromDate, key.date, key.id, limit);
+                } else if (key == null) {
+                    records = periodDao.loadHistoryPage(fromDate, limit);
+                } else {
+                    records = periodDao.loadHistoryAtOrBefore(fromDate, key.date, key.id, limit);
+                }
+                // 从列表顶部刷新时前面没有数据；其他情况往前还可能有更新的记录。
+                // 按键刷新却是空页（锚点及更早的记录都已删除）时，从这个键往前接着加载
+                if (key == null && params instanceof LoadParams.Refresh) {
+                    prevKey = null;
+                } else if (records.isEmpty()) {
+                    prevKey = params instanceof LoadParams.Refresh ? key : null;
+                } else {
+                    prevKey = Key.of(records.get(0));
+                }
+                nextKey = records.size() < limit ? null : Key.of(records.get(records.size() - 1));
+            }
+        } catch (RuntimeException e) {
+            return new LoadResult.Error<>(e);
+        }
+
+        if (getInvalid()) {
+            return new LoadResult.Invalid<>();
+        }
+        return new LoadResult.Page<>(records, prevKey, nextKey);
+    }
+
+    /**
+     * 失效后从可见位置往上半个初始页处接着加载，刷新后可见区域落在新页中间。
+     */
+    @Nullable
+    @Override
+    public Key getRefreshKey(@NonNull PagingState<Key, PeriodRecord> state) {
+        Integer anchor = state.getAnchorPosition();
+        if (anchor == null) {
+            return null;
+        }
+        int position = Math.max(0, anchor - state.getConfig().initialLoadSize / 2);
+        PeriodRecord record = state.closestItemToPosition(position);
+        return record == null ? null : Key.of(record);
+    }
+}
@@ -0,0 +1,37 @@
+package com.xie.mydaning.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// 每种提醒最多一条待触发项；dueAt 索引即按到期时间排序的优先队列，取最早一条、插入、删除都是 O(log n)
+@Entity(tableName = "pending_reminders", indices = {@Index("dueAt")})
+public class PendingReminder {
+    /** windowMillis 取值：闹钟级提醒，状态栏显示闹钟图标，Doze 下也准时。 */
+    public static final long ALARM_CLOCK = -1L;
+    /** windowMillis 取值：精确提醒，不显示闹钟图标。大于 0 时为允许推迟的窗口长度。 */
+    public static final long EXACT = 0L;
+
+    @PrimaryKey
+    @NonNull
+    public String kind = "";
+
+    public long dueAt; // 触发时刻（毫秒）
+    @ColumnInfo(defaultValue = "-1")
+    public long windowMillis = ALARM_CLOCK;
+    public long payload; // 各类提醒自带的参数，经期提醒存预计开始的 epoch day
+
+    public PendingReminder() {
+    }
+
+    @Ignore
+    public PendingReminder(@NonNull String kind, long dueAt, long windowMillis, long payload) {
+        this.kind = kind;
+        this.dueAt = dueAt;
+        this.windowMillis = windowMillis;
+        this.payload = payload;
+    }
+}
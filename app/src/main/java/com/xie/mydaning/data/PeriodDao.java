@@ -1,28 +1,48 @@
 package com.xie.mydaning.data;
 
-import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
-import java.util.Date;
 import java.util.List;
 
 @Dao
 public interface PeriodDao {
-    @Query("SELECT * FROM period_records ORDER BY date DESC")
-    LiveData<List<PeriodRecord>> getAllRecords();
+    // 历史分页：按 (date, id) 倒序的键集分页。date 上的上下界让查询只扫描索引里的一段，
+    // (date, id) 的比较拆开写，同一时刻的多条记录按 id 区分
+    @Query("SELECT * FROM period_records WHERE date >= :fromDate ORDER BY date DESC, id DESC LIMIT :limit")
+    List<PeriodRecord> loadHistoryPage(long fromDate, int limit);
     
-    @Query("SELECT * FROM period_records WHERE date >= :startDate AND date <= :endDate ORDER BY date DESC")
-    LiveData<List<PeriodRecord>> getRecordsByDateRange(Date startDate, Date endDate);
+    @Query("SELECT * FROM period_records WHERE date >= :fromDate AND date <= :date AND (date < :date OR id <= :id) "
+            + "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<PeriodRecord> loadHistoryAtOrBefore(long fromDate, long date, long id, int limit);
     
-    @Query("SELECT * FROM period_records WHERE type = 'start' ORDER BY date DESC")
-    LiveData<List<PeriodRecord>> getAllStartRecords();
+    @Query("SELECT * FROM period_records WHERE date >= :fromDate AND date <= :date AND (date < :date OR id < :id) "
+            + "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<PeriodRecord> loadHistoryBefore(long fromDate, long date, long id, int limit);
     
-    @Query("SELECT * FROM period_records WHERE type = 'end' ORDER BY date DESC")
-    LiveData<List<PeriodRecord>> getAllEndRecords();
+    /** 比 (date, id) 更新的记录，按正序返回，离边界最近的在前。 */
+    @Query("SELECT * FROM period_records WHERE date >= :fromDate AND date >= :date AND (date > :date OR id > :id) "
+            + "ORDER BY date ASC, id ASC LIMIT :limit")
+    List<PeriodRecord> loadHistoryAfter(long fromDate, long date, long id, int limit);
+    
+    @Query("SELECT * FROM period_records WHERE type = 'start' ORDER BY day DESC")
+    List<PeriodRecord> loadStartRecords();
+    
+    @Query("SELECT * FROM period_records WHERE type = 'end' ORDER BY day DESC")
+    List<PeriodRecord> loadEndRecords();
+    
+    @Query("SELECT * FROM period_records WHERE type = 'start' ORDER BY day DESC LIMIT 1")
+    PeriodRecord getLatestStartRecord();
+    
+    // 开机恢复提醒只需要开始日：只读一列，(type, day) 索引即可覆盖，不回表
+    @Query("SELECT day FROM period_records WHERE type = 'start' ORDER BY day ASC")
+    List<Integer> loadStartDays();
+    
+    @Query("SELECT * FROM period_records WHERE type = 'end' ORDER BY day DESC LIMIT 1")
+    PeriodRecord getLatestEndRecord();
     
     @Insert
     void insert(PeriodRecord record);
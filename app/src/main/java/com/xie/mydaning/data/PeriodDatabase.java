@@ -1,16 +1,133 @@
 package com.xie.mydaning.data;
 
 import android.content.Context;
+import android.database.Cursor;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
-@Database(entities = {PeriodRecord.class}, version = 1, exportSchema = false)
+import com.xie.mydaning.utils.DateUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 应用唯一的 Room 数据库，整个进程只持有一个连接池和一个失效追踪器。
+ */
+@Database(entities = {PeriodRecord.class, PendingReminder.class}, version = 6, exportSchema = true)
 @TypeConverters(DateConverter.class)
 public abstract class PeriodDatabase extends RoomDatabase {
+    public static final String DATABASE_NAME = "period_database";
+    private static final int NUMBER_OF_THREADS = 4;
+
+    // 查询和事务共用同一个线程池，避免 Room 默认再各建一套
+    static final ExecutorService databaseExecutor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+
+    /**
+     * v2：为 period_records 增加 (type, date) 和 date 索引。
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_period_records_type_date` ON `period_records` (`type`, `date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_period_records_date` ON `period_records` (`date`)");
+        }
+    };
+
+    /**
+     * v3：新增按本地时区计算的 day 列（epoch day）并回填，统计索引改为 (type, day)。
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `period_records` ADD COLUMN `day` INTEGER NOT NULL DEFAULT 0");
+            // 时区换算只能在 Java 侧完成，逐行回填
+            SupportSQLiteStatement update = db.compileStatement("UPDATE `period_records` SET `day` = ? WHERE `id` = ?");
+            try (Cursor cursor = db.query("SELECT `id`, `date` FROM `period_records` WHERE `date` IS NOT NULL ORDER BY `id`")) {
+                while (cursor.moveToNext()) {
+                    update.bindLong(1, DateUtils.toEpochDay(cursor.getLong(1)));
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                    update.clearBindings();
+                }
+            }
+            db.execSQL("DROP INDEX IF EXISTS `index_period_records_type_date`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_period_records_type_day` ON `period_records` (`type`, `day`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_period_records_day_date` ON `period_records` (`day`, `date`)");
+        }
+    };
+
+    /**
+     * v4：新增待触发提醒队列 pending_reminders，按 dueAt 建索引。
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `pending_reminders` (`kind` TEXT NOT NULL, "
+                    + "`dueAt` INTEGER NOT NULL, `payload` INTEGER NOT NULL, PRIMARY KEY(`kind`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_reminders_dueAt` ON `pending_reminders` (`dueAt`)");
+        }
+    };
+
+    /**
+     * v5：提醒队列增加 windowMillis，区分闹钟级、精确和可推迟的提醒；已有的都是闹钟级。
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `pending_reminders` ADD COLUMN `windowMillis` INTEGER NOT NULL DEFAULT -1");
+        }
+    };
+
+    /**
+     * v6：period_records.date 改为 NOT NULL，并删掉只被按天范围查询使用的 (day, date) 索引。
+     * v1 允许空日期，这样的行 day 也从未回填（为 0），在历史分页里看不到却会参与统计；
+     * 这里按 day 补成那天的 0 点，让它出现在历史里可以删改。SQLite 不能改列约束，只能重建表。
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            SupportSQLiteStatement update = db.compileStatement("UPDATE `period_records` SET `date` = ? WHERE `id` = ?");
+            try (Cursor cursor = db.query("SELECT `id`, `day` FROM `period_records` WHERE `date` IS NULL ORDER BY `id`")) {
+                while (cursor.moveToNext()) {
+                    update.bindLong(1, DateUtils.fromEpochDay(cursor.getInt(1)).getTime());
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                    update.clearBindings();
+                }
+            }
+            // 重建会丢掉自增序列，记下来稍后恢复，已删除记录的 id 不会被复用
+            long sequence = 0;
+            try (Cursor cursor = db.query("SELECT `seq` FROM `sqlite_sequence` WHERE `name` = 'period_records'")) {
+                if (cursor.moveToFirst()) {
+                    sequence = cursor.getLong(0);
+                }
+            }
+            db.execSQL("CREATE TABLE IF NOT EXISTS `period_records_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`date` INTEGER NOT NULL, `day` INTEGER NOT NULL DEFAULT 0, `type` TEXT, `flow` TEXT, "
+                    + "`pain` INTEGER NOT NULL, `notes` TEXT)");
+            db.execSQL("INSERT INTO `period_records_new` (`id`, `date`, `day`, `type`, `flow`, `pain`, `notes`) "
+                    + "SELECT `id`, `date`, `day`, `type`, `flow`, `pain`, `notes` FROM `period_records`");
+            db.execSQL("DROP TABLE `period_records`");
+            db.execSQL("ALTER TABLE `period_records_new` RENAME TO `period_records`");
+            if (sequence > 0) {
+                db.execSQL("DELETE FROM `sqlite_sequence` WHERE `name` = 'period_records'");
+                db.execSQL("INSERT INTO `sqlite_sequence` (`name`, `seq`) VALUES ('period_records', ?)", new Object[]{sequence});
+            }
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_period_records_type_day` ON `period_records` (`type`, `day`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_period_records_date` ON `period_records` (`date`)");
+        }
+    };
+
     public abstract PeriodDao periodDao();
+
+    public abstract ReminderDao reminderDao();
     
     private static volatile PeriodDatabase INSTANCE;
     
@@ -19,7 +136,11 @@ public abstract class PeriodDatabase extends RoomDatabase {
             synchronized (PeriodDatabase.class) {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            PeriodDatabase.class, "period_database")
+                            PeriodDatabase.class, DATABASE_NAME)
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .setQueryExecutor(databaseExecutor)
+                            .setTransactionExecutor(databaseExecutor)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6)
                             .build();
                 }
             }
@@ -27,4 +148,3 @@ public abstract class PeriodDatabase extends RoomDatabase {
         return INSTANCE;
     }
 }
-
@@ -1,47 +1,72 @@
 package com.xie.mydaning.data;
 
 import android.app.Application;
+import android.util.Log;
 
-import androidx.lifecycle.LiveData;
+import com.xie.mydaning.utils.DateUtils;
 
-import java.util.Date;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
 
 public class PeriodRepository {
+    private static final String TAG = "PeriodRepository";
+    private static final String STATS_SNAPSHOT_FILE = "stats_snapshot.bin";
+    
+    private PeriodDatabase database;
     private PeriodDao periodDao;
-    private LiveData<List<PeriodRecord>> allRecords;
-    private ExecutorService executorService;
+    private Executor executorService;
+    private final File statsSnapshotFile;
     
     public PeriodRepository(Application application) {
-        PeriodDatabase database = PeriodDatabase.getDatabase(application);
+        database = PeriodDatabase.getDatabase(application);
         periodDao = database.periodDao();
-        allRecords = periodDao.getAllRecords();
-        executorService = Executors.newSingleThreadExecutor();
+        // 写入走 Room 的串行事务执行器，底层复用数据库的共享线程池
+        executorService = database.getTransactionExecutor();
+        statsSnapshotFile = new File(application.getFilesDir(), STATS_SNAPSHOT_FILE);
     }
     
-    public LiveData<List<PeriodRecord>> getAllRecords() {
-        return allRecords;
+    /**
+     * 同步读出上次保存的统计快照，没有或已损坏时返回 null。文件只有几十字节，可以在启动时直接读。
+     */
+    public StatsSnapshot loadStatsSnapshot() {
+        return StatsSnapshot.readFrom(statsSnapshotFile);
     }
     
-    public LiveData<List<PeriodRecord>> getRecordsByDateRange(Date startDate, Date endDate) {
-        return periodDao.getRecordsByDateRange(startDate, endDate);
+    /**
+     * 保存统计快照，在后台线程调用。写入失败只记日志，下次重新计算时会再写。
+     */
+    public void saveStatsSnapshot(StatsSnapshot snapshot) {
+        try {
+            snapshot.writeTo(statsSnapshotFile);
+        } catch (IOException e) {
+            Log.w(TAG, "保存统计快照失败", e);
+        }
     }
     
-    public LiveData<List<PeriodRecord>> getAllStartRecords() {
-        return periodDao.getAllStartRecords();
+    /**
+     * 历史列表的分页数据源，每次失效后由 Pager 重新创建。
+     *
+     * @param fromDate 只包含 date 不早于此时刻（毫秒）的记录
+     */
+    public HistoryPagingSource createHistoryPagingSource(long fromDate) {
+        return new HistoryPagingSource(database, fromDate);
     }
     
-    public LiveData<List<PeriodRecord>> getAllEndRecords() {
-        return periodDao.getAllEndRecords();
+    /**
+     * 开始/结束记录的合并快照，调用方负责 start/stop。
+     */
+    public PeriodSnapshotSource createSnapshotSource() {
+        return new PeriodSnapshotSource(database);
     }
     
     public void insert(PeriodRecord record) {
+        record.day = DateUtils.toEpochDay(record.date);
         executorService.execute(() -> periodDao.insert(record));
     }
     
     public void update(PeriodRecord record) {
+        record.day = DateUtils.toEpochDay(record.date);
         executorService.execute(() -> periodDao.update(record));
     }
     
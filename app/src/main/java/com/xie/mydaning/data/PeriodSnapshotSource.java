@@ -0,0 +1,127 @@
+package com.xie.mydaning.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开始/结束记录的一致快照。
+ *
+ * period_records 每次事务提交后，由 Room 的失效通知触发一次读取；短时间内的多次写入
+ * 合并成一次。防抖计时用所有实例共用的一个调度线程，读取放到 Room 的查询执行器上；
+ * 两张列表在同一个事务里读出，同一实例的回调不会并发，按顺序执行。
+ */
+public class PeriodSnapshotSource {
+    private static final long DEBOUNCE_MILLIS = 100L;
+    // 只负责防抖计时，到点后把读取交给查询执行器，不在这个线程上读库
+    private static final ScheduledExecutorService DEBOUNCE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "period-snapshot-debounce");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface Listener {
+        /** 在后台线程回调，列表按 day 倒序。 */
+        void onSnapshot(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords);
+    }
+
+    private final PeriodDatabase database;
+    private final PeriodDao periodDao;
+    private final Executor queryExecutor;
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("period_records") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            scheduleLoad(DEBOUNCE_MILLIS);
+        }
+    };
+
+    private Listener listener;
+    private ScheduledFuture<?> pendingLoad;
+    // 查询执行器是多线程的：正在读时又到点的读取只记一笔，读完后再补一次
+    private boolean loading;
+    private boolean reloadRequested;
+
+    PeriodSnapshotSource(PeriodDatabase database) {
+        this.database = database;
+        this.periodDao = database.periodDao();
+        this.queryExecutor = database.getQueryExecutor();
+    }
+
+    public synchronized void start(Listener listener) {
+        this.listener = listener;
+        database.getInvalidationTracker().addObserver(observer);
+        scheduleLoad(0L);
+    }
+
+    public synchronized void stop() {
+        database.getInvalidationTracker().removeObserver(observer);
+        listener = null;
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+            pendingLoad = null;
+        }
+    }
+
+    private synchronized void scheduleLoad(long delayMillis) {
+        if (listener == null) {
+            return;
+        }
+        // 防抖：新的失效通知把还没开始的读取往后推
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+        }
+        pendingLoad = DEBOUNCE_SCHEDULER.schedule(() -> queryExecutor.execute(this::drain),
+                delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (loading) {
+                reloadRequested = true;
+                return;
+            }
+            loading = true;
+        }
+        try {
+            load();
+        } finally {
+            synchronized (this) {
+                loading = false;
+                if (reloadRequested) {
+                    reloadRequested = false;
+                    queryExecutor.execute(this::drain);
+                }
+            }
+        }
+    }
+
+    private void load() {
+        Listener target;
+        synchronized (this) {
+            target = listener;
+        }
+        if (target == null) {
+            return;
+        }
+        Snapshot snapshot = database.runInTransaction(
+                () -> new Snapshot(periodDao.loadStartRecords(), periodDao.loadEndRecords()));
+        target.onSnapshot(snapshot.startRecords, snapshot.endRecords);
+    }
+
+    private static class Snapshot {
+        final List<PeriodRecord> startRecords;
+        final List<PeriodRecord> endRecords;
+
+        Snapshot(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+            this.startRecords = startRecords;
+            this.endRecords = endRecords;
+        }
+    }
+}
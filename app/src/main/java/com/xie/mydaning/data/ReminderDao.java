@@ -0,0 +1,41 @@
+package com.xie.mydaning.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * 待触发提醒的队列。所有查询都走主键或 dueAt 索引，不扫全表。
+ */
+@Dao
+public interface ReminderDao {
+    /** 同一种提醒再次安排时覆盖旧的一条。 */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(PendingReminder reminder);
+
+    @Query("DELETE FROM pending_reminders WHERE kind = :kind")
+    int delete(String kind);
+
+    @Query("SELECT * FROM pending_reminders WHERE kind = :kind")
+    PendingReminder get(String kind);
+
+    /** 最早到期的一条准时提醒（闹钟级或精确），没有时返回 null。 */
+    @Query("SELECT * FROM pending_reminders WHERE windowMillis <= 0 ORDER BY dueAt ASC LIMIT 1")
+    PendingReminder loadEarliestStrict();
+
+    /** 最早到期的 limit 条可推迟的提醒。 */
+    @Query("SELECT * FROM pending_reminders WHERE windowMillis > 0 ORDER BY dueAt ASC LIMIT :limit")
+    List<PendingReminder> loadEarliestWindowed(int limit);
+
+    @Query("SELECT * FROM pending_reminders WHERE dueAt <= :now ORDER BY dueAt ASC")
+    List<PendingReminder> loadDue(long now);
+
+    /**
+     * 处理完一条到期提醒后移除它；处理时已重新安排（dueAt 变了）的不删。
+     */
+    @Query("DELETE FROM pending_reminders WHERE kind = :kind AND dueAt = :dueAt")
+    int deleteFired(String kind, long dueAt);
+}
@@ -0,0 +1,69 @@
+package com.xie.mydaning.receiver;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.xie.mydaning.utils.ReminderEngine;
+
+import java.util.function.Consumer;
+
+/**
+ * 广播接收器的异步处理：onReceive 里只拿 WakeLock 和 goAsync()，读设置、发通知、
+ * 重挂闹钟都放到提醒队列的后台线程上，做完立即释放 WakeLock 并结束广播。
+ */
+final class AsyncBroadcast {
+    // 只是兜底，正常情况下任务做完就释放；要短于后台广播的超时
+    private static final long WAKE_LOCK_TIMEOUT_MILLIS = 20_000L;
+
+    private AsyncBroadcast() {
+    }
+
+    static void run(BroadcastReceiver receiver, Context context, String tag, Consumer<ReminderEngine> work) {
+        Context appContext = context.getApplicationContext();
+        PowerManager.WakeLock wakeLock = acquireWakeLock(appContext, tag);
+        long acquiredAt = SystemClock.elapsedRealtime();
+        BroadcastReceiver.PendingResult result = receiver.goAsync();
+
+        ReminderEngine.enqueue(appContext, engine -> {
+            try {
+                work.accept(engine);
+            } finally {
+                finish(tag, wakeLock, acquiredAt, result);
+            }
+        });
+    }
+
+    private static PowerManager.WakeLock acquireWakeLock(Context context, String tag) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager == null) {
+            Log.w(tag, "无法获取PowerManager");
+            return null;
+        }
+        try {
+            // 只让 CPU 保持运行；亮屏交给通知自己，ACQUIRE_CAUSES_WAKEUP 对 PARTIAL_WAKE_LOCK 无效
+            PowerManager.WakeLock wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, tag + "::WakeLock");
+            wakeLock.setReferenceCounted(false);
+            wakeLock.acquire(WAKE_LOCK_TIMEOUT_MILLIS);
+            return wakeLock;
+        } catch (Exception e) {
+            Log.e(tag, "获取WakeLock失败", e);
+            return null;
+        }
+    }
+
+    private static void finish(String tag, PowerManager.WakeLock wakeLock, long acquiredAt,
+                               BroadcastReceiver.PendingResult result) {
+        if (wakeLock != null && wakeLock.isHeld()) {
+            try {
+                wakeLock.release();
+            } catch (Exception e) {
+                Log.e(tag, "释放WakeLock失败", e);
+            }
+        }
+        Log.i(tag, "WakeLock 持有 " + (SystemClock.elapsedRealtime() - acquiredAt) + " ms");
+        result.finish();
+    }
+}
@@ -0,0 +1,79 @@
+package com.xie.mydaning.receiver;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.xie.mydaning.data.PendingReminder;
+import com.xie.mydaning.utils.DateUtils;
+import com.xie.mydaning.utils.NotificationHelper;
+import com.xie.mydaning.utils.ReminderEngine;
+import com.xie.mydaning.utils.ReminderScheduler;
+import com.xie.mydaning.utils.WaterReminderPlan;
+
+import java.time.ZoneId;
+
+/**
+ * 所有提醒共用的闹铃接收器：一次处理队列里所有到期的提醒，再为下一条重挂闹钟。
+ */
+public class ReminderDispatchReceiver extends BroadcastReceiver {
+    private static final String TAG = "ReminderDispatchReceiver";
+    private static final String PREFS_NAME = "period_settings";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        Log.d(TAG, "收到提醒广播！时间: " + System.currentTimeMillis());
+
+        // 读写队列、读设置、发通知都交给后台线程，主线程只负责拿 WakeLock 和 goAsync()
+        AsyncBroadcast.run(this, context, TAG, engine -> {
+            // 确保通知渠道已创建
+            NotificationHelper.ensureChannels(context);
+            int count = engine.dispatchDue(System.currentTimeMillis(), (queue, reminder) -> handle(context, queue, reminder));
+            Log.d(TAG, "提醒处理完成，本批 " + count + " 条");
+        });
+    }
+
+    static void handle(Context context, @NonNull ReminderEngine engine, @NonNull PendingReminder reminder) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        switch (reminder.kind) {
+            case ReminderEngine.KIND_WATER:
+                if (!prefs.getBoolean("water_reminder", true)) {
+                    Log.d(TAG, "喝水提醒已关闭，不再安排");
+                    return;
+                }
+                WaterReminderPlan plan = ReminderScheduler.loadWaterPlan(context);
+                long now = System.currentTimeMillis();
+                ZoneId zone = ZoneId.systemDefault();
+                if (!plan.isQuiet(now, zone)) {
+                    // 发送强提醒通知（震动+声音+状态栏+唤醒屏幕）
+                    NotificationHelper.notifyWaterReminder(
+                            context,
+                            "💧 喝水提醒",
+                            "记得补充水分，保持健康哦！"
+                    );
+                }
+                // 自动安排下一次提醒：取这一格之后的下一个网格点，晚到不会推迟后面的提醒
+                ReminderScheduler.scheduleNextWater(engine, plan, Math.max(now, reminder.dueAt), zone);
+                break;
+            case ReminderEngine.KIND_PERIOD:
+                if (!prefs.getBoolean("period_reminder", true)) {
+                    Log.d(TAG, "经期提醒已关闭");
+                    return;
+                }
+                String dateText = DateUtils.formatDate((int) reminder.payload);
+                NotificationHelper.notifyPeriodReminder(
+                        context,
+                        "❤️ 经期提醒",
+                        "预计一周后开始经期（" + dateText + "），请提前做好安排。"
+                );
+                break;
+            default:
+                Log.w(TAG, "未知的提醒类型: " + reminder.kind);
+                break;
+        }
+    }
+}
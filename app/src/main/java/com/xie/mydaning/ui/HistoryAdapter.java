@@ -3,23 +3,47 @@ package com.xie.mydaning.ui;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.xie.mydaning.R;
 import com.xie.mydaning.data.PeriodRecord;
 import com.xie.mydaning.utils.DateUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Objects;
 
-public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHolder> {
-    private List<PeriodRecord> records = new ArrayList<>();
+/**
+ * 历史记录列表，数据按页提交。差异在后台线程计算，只有变化的行会重新绑定；
+ * 滚动接近已加载部分的边缘时，getItem 会触发下一页的加载。
+ */
+public class HistoryAdapter extends PagingDataAdapter<PeriodRecord, HistoryAdapter.ViewHolder> {
     private OnItemActionListener actionListener;
 
+    static final DiffUtil.ItemCallback<PeriodRecord> DIFF_CALLBACK = new DiffUtil.ItemCallback<PeriodRecord>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull PeriodRecord oldItem, @NonNull PeriodRecord newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PeriodRecord oldItem, @NonNull PeriodRecord newItem) {
+            return Objects.equals(oldItem.date, newItem.date)
+                    && Objects.equals(oldItem.type, newItem.type)
+                    && Objects.equals(oldItem.flow, newItem.flow)
+                    && oldItem.pain == newItem.pain
+                    && Objects.equals(oldItem.notes, newItem.notes);
+        }
+    };
+
+    public HistoryAdapter() {
+        // 分页适配器不支持稳定 ID，行的对应关系由 DIFF_CALLBACK 按 id 判断
+        super(DIFF_CALLBACK);
+    }
+
     public interface OnItemActionListener {
         void onEdit(PeriodRecord record);
         void onDelete(PeriodRecord record);
@@ -39,39 +63,53 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
     
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        PeriodRecord record = records.get(position);
-        holder.bind(record, actionListener);
-    }
-    
-    @Override
-    public int getItemCount() {
-        return records.size();
-    }
-    
-    public void setRecords(List<PeriodRecord> records) {
-        this.records = records != null ? records : new ArrayList<>();
-        notifyDataSetChanged();
+        // 未开启占位，加载到的位置都有记录
+        PeriodRecord record = getItem(position);
+        if (record != null) {
+            holder.bind(record, actionListener);
+        }
     }
     
     static class ViewHolder extends RecyclerView.ViewHolder {
         private TextView tvDay;
         private TextView tvMonth;
         private TextView tvType;
-        private LinearLayout llTags;
+        private TextView tvFlowTag;
+        private TextView tvPainTag;
         private TextView tvNotes;
+        private PeriodRecord boundRecord;
+        private OnItemActionListener boundListener;
         
         ViewHolder(@NonNull View itemView) {
             super(itemView);
             tvDay = itemView.findViewById(R.id.tv_day);
             tvMonth = itemView.findViewById(R.id.tv_month);
             tvType = itemView.findViewById(R.id.tv_type);
-            llTags = itemView.findViewById(R.id.ll_tags);
+            tvFlowTag = itemView.findViewById(R.id.tv_flow_tag);
+            tvPainTag = itemView.findViewById(R.id.tv_pain_tag);
             tvNotes = itemView.findViewById(R.id.tv_notes);
+
+            // 点击监听只设一次，回调时取当前绑定的记录
+            itemView.setOnClickListener(v -> {
+                if (boundListener != null && boundRecord != null) {
+                    boundListener.onEdit(boundRecord);
+                }
+            });
+
+            itemView.setOnLongClickListener(v -> {
+                if (boundListener != null && boundRecord != null) {
+                    boundListener.onDelete(boundRecord);
+                }
+                return true;
+            });
         }
         
         void bind(PeriodRecord record, OnItemActionListener listener) {
-            tvDay.setText(DateUtils.formatDay(record.date));
-            tvMonth.setText(DateUtils.formatMonth(record.date));
+            boundRecord = record;
+            boundListener = listener;
+
+            tvDay.setText(DateUtils.formatDay(record.day));
+            tvMonth.setText(DateUtils.formatMonth(record.day));
             
             // 设置类型
             String typeText = "";
@@ -84,20 +122,17 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
             }
             tvType.setText(typeText);
             
-            // 清除标签
-            llTags.removeAllViews();
-            
-            // 添加流量标签
+            // 标签在布局里预先建好，这里只改文字和颜色；背景是同一个 ColorDrawable，改色不会新建对象
             if (record.flow != null) {
-                TextView flowTag = createTag(itemView.getContext(), getFlowText(record.flow), 
+                styleTag(tvFlowTag, getFlowText(record.flow),
                     getFlowBgColor(record.flow), getFlowTextColor(record.flow));
-                llTags.addView(flowTag);
+                tvFlowTag.setVisibility(View.VISIBLE);
+            } else {
+                tvFlowTag.setVisibility(View.GONE);
             }
             
-            // 添加疼痛标签
-            TextView painTag = createTag(itemView.getContext(), getPainText(record.pain),
+            styleTag(tvPainTag, getPainText(record.pain),
                 getPainBgColor(record.pain), getPainTextColor(record.pain));
-            llTags.addView(painTag);
             
             // 设置备注
             if (record.notes != null && !record.notes.isEmpty()) {
@@ -106,34 +141,12 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
             } else {
                 tvNotes.setVisibility(View.GONE);
             }
-
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onEdit(record);
-                }
-            });
-
-            itemView.setOnLongClickListener(v -> {
-                if (listener != null) {
-                    listener.onDelete(record);
-                }
-                return true;
-            });
         }
         
-        private TextView createTag(android.content.Context context, String text, int bgColor, int textColor) {
-            TextView tag = new TextView(context);
+        private void styleTag(TextView tag, String text, int bgColor, int textColor) {
             tag.setText(text);
-            tag.setPadding(12, 4, 12, 4);
-            tag.setTextSize(12);
             tag.setTextColor(textColor);
             tag.setBackgroundColor(bgColor);
-            tag.setLayoutParams(new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.WRAP_CONTENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT
-            ));
-            ((LinearLayout.LayoutParams) tag.getLayoutParams()).setMargins(0, 0, 8, 0);
-            return tag;
         }
         
         private String getFlowText(String flow) {
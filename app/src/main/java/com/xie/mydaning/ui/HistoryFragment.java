@@ -12,34 +12,33 @@ import android.widget.RadioGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
-import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.github.mikephil.charting.charts.LineChart;
-import com.github.mikephil.charting.components.XAxis;
-import com.github.mikephil.charting.data.Entry;
-import com.github.mikephil.charting.data.LineData;
-import com.github.mikephil.charting.data.LineDataSet;
 import com.xie.mydaning.R;
 import com.xie.mydaning.data.PeriodRecord;
-import com.xie.mydaning.utils.DateUtils;
-import com.xie.mydaning.utils.PeriodCalculator;
+import com.xie.mydaning.utils.CyclePredictor;
+import com.xie.mydaning.utils.CycleSeries;
+import com.xie.mydaning.view.CycleChartView;
 import com.xie.mydaning.viewmodel.PeriodViewModel;
 
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 
-public class HistoryFragment extends Fragment implements HistoryAdapter.OnItemActionListener {
+public class HistoryFragment extends TabFragment implements HistoryAdapter.OnItemActionListener {
     private PeriodViewModel viewModel;
     private Button btnFilterAll, btnFilterMonth, btnFilterYear;
     private RecyclerView rvHistory;
     private HistoryAdapter adapter;
-    private LineChart chartCycle;
-    private String currentFilter = "all";
+    private CycleChartView chartCycle;
+    private List<PeriodRecord> chartStartRecords;
+    private CyclePredictor.Forecast chartForecast;
+    
+    // 周期序列跨更新保留，新记一次开始时只给图表追加一个点
+    private final CycleSeries cycleSeries = new CycleSeries();
+    private int[] chartLengths = new int[0];
+    // 历史跨度超过约 3 年时先显示按月/按年平均的概览，点击图表在概览和逐个周期之间切换
+    private boolean showOverview = true;
     
     @Nullable
     @Override
@@ -58,6 +57,10 @@ public class HistoryFragment extends Fragment implements HistoryAdapter.OnItemAc
         btnFilterYear = view.findViewById(R.id.btn_filter_year);
         rvHistory = view.findViewById(R.id.rv_history);
         chartCycle = view.findViewById(R.id.chart_cycle);
+        chartCycle.setOnClickListener(v -> {
+            showOverview = !showOverview;
+            updateChart();
+        });
         
         adapter = new HistoryAdapter();
         adapter.setOnItemActionListener(this);
@@ -70,122 +73,58 @@ public class HistoryFragment extends Fragment implements HistoryAdapter.OnItemAc
         btnFilterYear.setOnClickListener(v -> filterRecords("year"));
         
         // 观察数据
-        viewModel.getAllRecords().observe(getViewLifecycleOwner(), records -> {
-            filterRecords(currentFilter);
+        viewModel.getHistoryFilter().observe(getTabLifecycleOwner(), this::updateFilterButtons);
+        // 提交的记录之后不能原地修改，否则差异计算看不到变化
+        viewModel.getFilteredRecords().observe(getTabLifecycleOwner(),
+                pagingData -> adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+        
+        viewModel.getStartRecords().observe(getTabLifecycleOwner(), startRecords -> {
+            chartStartRecords = startRecords;
             updateChart();
         });
         
-        setupChart();
+        viewModel.getForecast().observe(getTabLifecycleOwner(), forecast -> {
+            chartForecast = forecast;
+            updateChart();
+        });
     }
     
     private void filterRecords(String filter) {
-        currentFilter = filter;
-        
+        viewModel.setHistoryFilter(filter);
+    }
+    
+    private void updateFilterButtons(String filter) {
         btnFilterAll.setSelected(filter.equals("all"));
         btnFilterMonth.setSelected(filter.equals("month"));
         btnFilterYear.setSelected(filter.equals("year"));
-        
-        viewModel.getAllRecords().observe(getViewLifecycleOwner(), allRecords -> {
-            if (allRecords == null) {
-                adapter.setRecords(new ArrayList<>());
-                return;
-            }
-            
-            List<PeriodRecord> filtered = new ArrayList<>();
-            Date now = new Date();
-            
-            for (PeriodRecord record : allRecords) {
-                boolean include = false;
-                
-                if (filter.equals("all")) {
-                    include = true;
-                } else if (filter.equals("month")) {
-                    Date monthStart = DateUtils.getStartOfMonth(now);
-                    if (record.date.after(monthStart) || record.date.equals(monthStart)) {
-                        include = true;
-                    }
-                } else if (filter.equals("year")) {
-                    Date yearStart = DateUtils.getStartOfYear(now);
-                    if (record.date.after(yearStart) || record.date.equals(yearStart)) {
-                        include = true;
-                    }
-                }
-                
-                if (include) {
-                    filtered.add(record);
-                }
-            }
-            
-            adapter.setRecords(filtered);
-        });
-    }
-    
-    private void setupChart() {
-        chartCycle.getDescription().setEnabled(false);
-        chartCycle.setTouchEnabled(true);
-        chartCycle.setDragEnabled(true);
-        chartCycle.setScaleEnabled(false);
-        chartCycle.setPinchZoom(false);
-        chartCycle.setDrawGridBackground(false);
-        
-        XAxis xAxis = chartCycle.getXAxis();
-        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-        xAxis.setDrawGridLines(false);
-        
-        chartCycle.getAxisLeft().setDrawGridLines(false);
-        chartCycle.getAxisRight().setEnabled(false);
-        chartCycle.getLegend().setEnabled(false);
     }
     
     private void updateChart() {
-        viewModel.getAllStartRecords().observe(getViewLifecycleOwner(), startRecords -> {
-            if (startRecords == null || startRecords.size() < 2) {
-                chartCycle.clear();
-                return;
-            }
-            
-            List<PeriodCalculator.PeriodInfo> periods = new ArrayList<>();
-            for (PeriodRecord record : startRecords) {
-                periods.add(new PeriodCalculator.PeriodInfo(record.date, null));
+        int appended = cycleSeries.sync(chartStartRecords);
+        int size = cycleSeries.size();
+        int level = CycleSeries.levelForSpan(cycleSeries.span());
+        if (showOverview && level != CycleSeries.LEVEL_CYCLE) {
+            // 各层的点按序列版本缓存，数据没变时不会重新聚合、降采样
+            CycleSeries.Points points = cycleSeries.points(level, chartCycle.getOverviewCapacity());
+            chartCycle.setOverview(points.x, points.y, points.count, cycleSeries.lastStart());
+        } else if (appended >= 0 && !chartCycle.isOverview() && chartCycle.getCycleCount() + appended == size) {
+            for (int i = size - appended; i < size; i++) {
+                chartCycle.appendCycle(cycleSeries.length(i));
             }
-            
-            if (periods.size() < 2) {
-                chartCycle.clear();
-                return;
-            }
-            
-            List<Entry> entries = new ArrayList<>();
-            List<Integer> cycles = new ArrayList<>();
-            
-            for (int i = 0; i < periods.size() - 1; i++) {
-                Date currentStart = periods.get(i).startDate;
-                Date nextStart = periods.get(i + 1).startDate;
-                int cycleLength = DateUtils.getDaysBetween(nextStart, currentStart);
-                if (cycleLength > 0 && cycleLength < 60) {
-                    cycles.add(cycleLength);
-                }
-            }
-            
-            for (int i = 0; i < cycles.size(); i++) {
-                entries.add(new Entry(i, cycles.get(i)));
+        } else {
+            // 中间有改动、视图是新建的或刚从概览切回：整体替换
+            if (chartLengths.length < size) {
+                chartLengths = new int[Math.max(size, chartLengths.length * 2)];
             }
-            
-            if (entries.isEmpty()) {
-                chartCycle.clear();
-                return;
+            for (int i = 0; i < size; i++) {
+                chartLengths[i] = cycleSeries.length(i);
             }
-            
-            LineDataSet dataSet = new LineDataSet(entries, "周期");
-            dataSet.setColor(getContext().getColor(R.color.primary_color));
-            dataSet.setLineWidth(3f);
-            dataSet.setCircleColor(getContext().getColor(R.color.primary_color));
-            dataSet.setCircleRadius(5f);
-            dataSet.setDrawValues(false);
-            
-            LineData lineData = new LineData(dataSet);
-            chartCycle.setData(lineData);
-            chartCycle.invalidate();
-        });
+            chartCycle.setCycles(chartLengths, size);
+        }
+        
+        // 接上预测的下一个周期
+        int lastStart = cycleSeries.lastStart();
+        chartCycle.setForecast(chartForecast != null && size > 0 ? chartForecast.day - lastStart : 0);
     }
 
     @Override
@@ -238,11 +177,13 @@ public class HistoryFragment extends Fragment implements HistoryAdapter.OnItemAc
                 .setTitle("编辑记录")
                 .setView(dialogView)
                 .setPositiveButton("保存", (dialog, which) -> {
-                    record.type = getStatusValue(rgStatus.getCheckedRadioButtonId());
-                    record.flow = getFlowValue(rgFlow.getCheckedRadioButtonId());
-                    record.pain = getPainValue(rgPain.getCheckedRadioButtonId());
-                    record.notes = etNotes.getText().toString();
-                    viewModel.update(record);
+                    // 改副本：列表里的对象是 DiffUtil 比较的旧值，不能原地修改
+                    PeriodRecord edited = new PeriodRecord(record);
+                    edited.type = getStatusValue(rgStatus.getCheckedRadioButtonId());
+                    edited.flow = getFlowValue(rgFlow.getCheckedRadioButtonId());
+                    edited.pain = getPainValue(rgPain.getCheckedRadioButtonId());
+                    edited.notes = etNotes.getText().toString();
+                    viewModel.update(edited);
                 })
                 .setNegativeButton("取消", null)
                 .show();
@@ -11,15 +11,14 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Locale;
 
 import com.xie.mydaning.MainActivity;
 import com.xie.mydaning.R;
+import com.xie.mydaning.utils.CyclePredictor;
 import com.xie.mydaning.utils.DateUtils;
 import com.xie.mydaning.utils.NotificationHelper;
 import com.xie.mydaning.utils.PeriodCalculator;
@@ -27,7 +26,7 @@ import com.xie.mydaning.utils.ReminderScheduler;
 import com.xie.mydaning.view.CircularProgressView;
 import com.xie.mydaning.viewmodel.PeriodViewModel;
 
-public class HomeFragment extends Fragment {
+public class HomeFragment extends TabFragment {
     private static final String PREFS_NAME = "period_settings";
     private static final String KEY_LAST_PERIOD_NOTIFY = "last_period_notify_day";
     private final SimpleDateFormat dayKeyFormat = new SimpleDateFormat("yyyyMMdd", Locale.getDefault());
@@ -84,25 +83,33 @@ public class HomeFragment extends Fragment {
         btnDrinkWater = view.findViewById(R.id.btn_drink_water);
         
         // 观察数据
-        viewModel.getCurrentPeriodStatus().observe(getViewLifecycleOwner(), status -> {
+        viewModel.getCurrentPeriodStatus().observe(getTabLifecycleOwner(), status -> {
             if (status != null) {
                 updateCycleStatus(status);
             }
         });
         
-        viewModel.getAverageCycle().observe(getViewLifecycleOwner(), cycle -> {
+        viewModel.getForecast().observe(getTabLifecycleOwner(), forecast -> {
+            if (forecast != null) {
+                updateForecast(forecast);
+            } else {
+                clearForecast();
+            }
+        });
+        
+        viewModel.getAverageCycle().observe(getTabLifecycleOwner(), cycle -> {
             if (cycle != null) {
                 tvAverageCycle.setText(String.valueOf(cycle));
             }
         });
         
-        viewModel.getAveragePeriod().observe(getViewLifecycleOwner(), period -> {
+        viewModel.getAveragePeriod().observe(getTabLifecycleOwner(), period -> {
             if (period != null) {
                 tvAveragePeriod.setText(String.valueOf(period));
             }
         });
         
-        viewModel.getRegularity().observe(getViewLifecycleOwner(), regularity -> {
+        viewModel.getRegularity().observe(getTabLifecycleOwner(), regularity -> {
             if (regularity != null) {
                 tvRegularity.setText(regularity + "%");
             }
@@ -168,45 +175,55 @@ public class HomeFragment extends Fragment {
             int avgPeriod = viewModel.getAveragePeriod().getValue() != null ? 
                 viewModel.getAveragePeriod().getValue() : 5;
             float progress = (status.currentDay / (float) avgPeriod) * 100f;
-            progressRing.setProgress(Math.min(progress, 100f));
+            progressRing.animateProgress(Math.min(progress, 100f));
         } else {
             cycleStatus.setText(getString(R.string.cycle_status_inactive));
             currentDay.setText("第 0 天");
-            progressRing.setProgress(0f);
+            progressRing.animateProgress(0f);
         }
+    }
+    
+    /**
+     * 没有开始记录（例如最后一条被删掉）时没有预测：清掉旧的日期和提醒文字，并取消队列里的经期提醒。
+     */
+    private void clearForecast() {
+        nextPeriodDate.setText("暂无预测");
+        tvPeriodReminder.setText("经期提醒：记录一次经期后开始提醒");
+        ReminderScheduler.cancelPeriodReminder(requireContext());
+    }
+    
+    private void updateForecast(CyclePredictor.Forecast forecast) {
+        String dateText = DateUtils.formatDate(forecast.day);
+        int margin = forecast.getMargin();
+        nextPeriodDate.setText(margin > 0 ? dateText + "（±" + margin + "天）" : dateText);
         
-        if (status.nextPeriodDate != null) {
-            nextPeriodDate.setText(DateUtils.formatDate(status.nextPeriodDate));
-            
-            // 更新经期提醒
-            long daysUntilNext = DateUtils.getDaysBetween(new Date(), status.nextPeriodDate);
-            if (daysUntilNext > 7) {
-                tvPeriodReminder.setText("经期提醒：还有 " + (daysUntilNext - 7) + " 天");
-            } else if (daysUntilNext > 0) {
-                tvPeriodReminder.setText("经期提醒：还有 " + daysUntilNext + " 天");
-            } else {
-                tvPeriodReminder.setText("经期提醒：即将到来");
-            }
+        // 更新经期提醒
+        long daysUntilNext = forecast.day - DateUtils.today();
+        if (daysUntilNext > 7) {
+            tvPeriodReminder.setText("经期提醒：还有 " + (daysUntilNext - 7) + " 天");
+        } else if (daysUntilNext > 0) {
+            tvPeriodReminder.setText("经期提醒：还有 " + daysUntilNext + " 天");
+        } else {
+            tvPeriodReminder.setText("经期提醒：即将到来");
+        }
 
-            // 距离经期近时，触发强提醒（震动+声音+通知）
-            if (getContext() != null && prefs.getBoolean("period_reminder", true) && daysUntilNext <= 2) {
-                String key = dayKeyFormat.format(status.nextPeriodDate);
-                String last = prefs.getString(KEY_LAST_PERIOD_NOTIFY, "");
-                if (!key.equals(last)) {
-                    String title = "经期提醒";
-                    String content = daysUntilNext > 0
-                            ? "预计还有 " + daysUntilNext + " 天开始，请做好准备。"
-                            : "经期即将或已经开始，注意休息。";
-                    NotificationHelper.notifyPeriodReminder(getContext(), title, content);
-                    prefs.edit().putString(KEY_LAST_PERIOD_NOTIFY, key).apply();
-                }
+        // 距离经期近时，触发强提醒（震动+声音+通知）
+        if (getContext() != null && prefs.getBoolean("period_reminder", true) && daysUntilNext <= 2) {
+            String key = dayKeyFormat.format(forecast.getDate());
+            String last = prefs.getString(KEY_LAST_PERIOD_NOTIFY, "");
+            if (!key.equals(last)) {
+                String title = "经期提醒";
+                String content = daysUntilNext > 0
+                        ? "预计还有 " + daysUntilNext + " 天开始，请做好准备。"
+                        : "经期即将或已经开始，注意休息。";
+                NotificationHelper.notifyPeriodReminder(getContext(), title, content);
+                prefs.edit().putString(KEY_LAST_PERIOD_NOTIFY, key).apply();
             }
+        }
 
-            // 安排提前一周的闹铃级提醒（即使应用退出/重启也能收到）
-            if (getContext() != null && prefs.getBoolean("period_reminder", true)) {
-                ReminderScheduler.schedulePeriodReminder(requireContext(), status.nextPeriodDate);
-            }
+        // 安排提前一周的闹铃级提醒（即使应用退出/重启也能收到）
+        if (getContext() != null && prefs.getBoolean("period_reminder", true)) {
+            ReminderScheduler.schedulePeriodReminder(requireContext(), forecast);
         }
     }
 }
-
@@ -10,7 +10,6 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.xie.mydaning.MainActivity;
@@ -20,7 +19,7 @@ import com.xie.mydaning.viewmodel.PeriodViewModel;
 
 import java.util.Date;
 
-public class RecordFragment extends Fragment {
+public class RecordFragment extends TabFragment {
     private PeriodViewModel viewModel;
     private Button btnStatusStart, btnStatusEnd, btnStatusNone;
     private Button btnFlowLight, btnFlowNormal, btnFlowHeavy;
@@ -1,5 +1,6 @@
 package com.xie.mydaning.ui;
 
+import android.app.TimePickerDialog;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -12,22 +13,28 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.xie.mydaning.R;
 import com.xie.mydaning.viewmodel.PeriodViewModel;
+import com.xie.mydaning.utils.ReminderEngine;
 import com.xie.mydaning.utils.ReminderScheduler;
 import com.xie.mydaning.utils.PermissionHelper;
 
-public class SettingsFragment extends Fragment {
+import java.util.Locale;
+
+public class SettingsFragment extends TabFragment {
     private PeriodViewModel viewModel;
     private SwitchMaterial switchPeriodReminder;
     private SwitchMaterial switchWaterReminder;
     private SeekBar seekbarWaterInterval;
     private TextView tvWaterInterval;
     private TextView tvWaterReminderDesc;
+    private SeekBar seekbarWaterTolerance;
+    private TextView tvWaterTolerance;
+    private SwitchMaterial switchWaterQuiet;
+    private TextView tvWaterQuietHours;
     private TextView tvAvgCycleLength;
     private TextView tvAvgPeriodLength;
     private TextView tvPermissionStatus;
@@ -54,6 +61,10 @@ public class SettingsFragment extends Fragment {
         seekbarWaterInterval = view.findViewById(R.id.seekbar_water_interval);
         tvWaterInterval = view.findViewById(R.id.tv_water_interval);
         tvWaterReminderDesc = view.findViewById(R.id.tv_water_reminder_desc);
+        seekbarWaterTolerance = view.findViewById(R.id.seekbar_water_tolerance);
+        tvWaterTolerance = view.findViewById(R.id.tv_water_tolerance);
+        switchWaterQuiet = view.findViewById(R.id.switch_water_quiet);
+        tvWaterQuietHours = view.findViewById(R.id.tv_water_quiet_hours);
         tvAvgCycleLength = view.findViewById(R.id.tv_avg_cycle_length);
         tvAvgPeriodLength = view.findViewById(R.id.tv_avg_period_length);
         tvPermissionStatus = view.findViewById(R.id.tv_permission_status);
@@ -78,19 +89,25 @@ public class SettingsFragment extends Fragment {
         int progress = intervalMinutes - 1;
         seekbarWaterInterval.setProgress(progress);
         updateWaterInterval(intervalMinutes);
+        int toleranceMinutes = prefs.getInt(ReminderScheduler.KEY_WATER_TOLERANCE, ReminderScheduler.DEFAULT_WATER_TOLERANCE);
+        seekbarWaterTolerance.setProgress(toleranceMinutes);
+        updateWaterTolerance(toleranceMinutes);
+        switchWaterQuiet.setChecked(prefs.getInt(ReminderScheduler.KEY_QUIET_START, ReminderScheduler.DEFAULT_QUIET_START)
+                != prefs.getInt(ReminderScheduler.KEY_QUIET_END, ReminderScheduler.DEFAULT_QUIET_END));
+        updateQuietHours();
         // 恢复时同步定时器
         if (switchWaterReminder.isChecked()) {
             ReminderScheduler.scheduleWaterReminder(requireContext(), intervalMinutes);
         }
         
         // 观察统计数据
-        viewModel.getAverageCycle().observe(getViewLifecycleOwner(), cycle -> {
+        viewModel.getAverageCycle().observe(getTabLifecycleOwner(), cycle -> {
             if (cycle != null) {
                 tvAvgCycleLength.setText(cycle + "天");
             }
         });
         
-        viewModel.getAveragePeriod().observe(getViewLifecycleOwner(), period -> {
+        viewModel.getAveragePeriod().observe(getTabLifecycleOwner(), period -> {
             if (period != null) {
                 tvAvgPeriodLength.setText(period + "天");
             }
@@ -129,6 +146,81 @@ public class SettingsFragment extends Fragment {
             @Override
             public void onStopTrackingTouch(SeekBar seekBar) {}
         });
+        
+        seekbarWaterTolerance.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                updateWaterTolerance(progress);
+            }
+            
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {}
+            
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                // 松手后再保存并重新安排，拖动过程中只更新文字
+                prefs.edit().putInt(ReminderScheduler.KEY_WATER_TOLERANCE, seekBar.getProgress()).apply();
+                rescheduleWater();
+            }
+        });
+        
+        switchWaterQuiet.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            // 起止相同表示不启用；重新打开时恢复默认的 22:00 - 08:00
+            int start = isChecked ? ReminderScheduler.DEFAULT_QUIET_START : 0;
+            int end = isChecked ? ReminderScheduler.DEFAULT_QUIET_END : 0;
+            saveQuietHours(start, end);
+        });
+        
+        tvWaterQuietHours.setOnClickListener(v -> {
+            if (switchWaterQuiet.isChecked()) {
+                pickQuietHours();
+            }
+        });
+    }
+    
+    private void rescheduleWater() {
+        if (switchWaterReminder.isChecked()) {
+            ReminderScheduler.scheduleWaterReminder(requireContext(), seekbarWaterInterval.getProgress() + 1);
+        }
+    }
+    
+    private void updateWaterTolerance(int toleranceMinutes) {
+        tvWaterTolerance.setText(toleranceMinutes == 0 ? "准时提醒" : "最多推迟" + toleranceMinutes + "分钟（不超过间隔的一半）");
+    }
+    
+    /** 先选开始时间，再选结束时间。 */
+    private void pickQuietHours() {
+        int start = prefs.getInt(ReminderScheduler.KEY_QUIET_START, ReminderScheduler.DEFAULT_QUIET_START);
+        int end = prefs.getInt(ReminderScheduler.KEY_QUIET_END, ReminderScheduler.DEFAULT_QUIET_END);
+        new TimePickerDialog(requireContext(), (startPicker, startHour, startMinute) ->
+                new TimePickerDialog(requireContext(), (endPicker, endHour, endMinute) -> {
+                    int newStart = startHour * 60 + startMinute;
+                    int newEnd = endHour * 60 + endMinute;
+                    if (newStart == newEnd) {
+                        // 起止相同等于关闭，由开关的监听器保存
+                        switchWaterQuiet.setChecked(false);
+                    } else {
+                        saveQuietHours(newStart, newEnd);
+                    }
+                }, end / 60, end % 60, true).show(),
+                start / 60, start % 60, true).show();
+    }
+    
+    private void saveQuietHours(int startMinute, int endMinute) {
+        prefs.edit()
+                .putInt(ReminderScheduler.KEY_QUIET_START, startMinute)
+                .putInt(ReminderScheduler.KEY_QUIET_END, endMinute)
+                .apply();
+        updateQuietHours();
+        rescheduleWater();
+    }
+    
+    private void updateQuietHours() {
+        int start = prefs.getInt(ReminderScheduler.KEY_QUIET_START, ReminderScheduler.DEFAULT_QUIET_START);
+        int end = prefs.getInt(ReminderScheduler.KEY_QUIET_END, ReminderScheduler.DEFAULT_QUIET_END);
+        tvWaterQuietHours.setText(start != end
+                ? String.format(Locale.getDefault(), "%02d:%02d - %02d:%02d", start / 60, start % 60, end / 60, end % 60)
+                : "已关闭，夜里也会提醒");
     }
     
     private void updateWaterInterval(int intervalMinutes) {
@@ -160,6 +252,14 @@ public class SettingsFragment extends Fragment {
     private void updatePermissionStatus() {
         String status = PermissionHelper.getPermissionStatus(requireContext());
         tvPermissionStatus.setText(status);
+        // 附上最近提醒的实际延迟，排查“提醒不准时”的反馈；日志在提醒队列的线程上读，算好再贴回界面
+        TextView statusView = tvPermissionStatus;
+        ReminderEngine.enqueue(requireContext(), engine -> {
+            String drift = ReminderScheduler.describeDrift(engine);
+            if (!drift.isEmpty()) {
+                statusView.post(() -> statusView.setText(status + drift));
+            }
+        });
     }
     
     private void checkAndRequestPermissions() {
@@ -0,0 +1,91 @@
+package com.xie.mydaning.ui;
+
+import android.os.Bundle;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+/**
+ * 底部导航的标签页。MainActivity 用 show/hide 切换标签，切走后 Fragment 和视图都保留。
+ *
+ * 观察数据时用 {@link #getTabLifecycleOwner()} 代替 getViewLifecycleOwner()：标签隐藏期间它停在
+ * CREATED，LiveData 不再回调；重新显示时回到视图的状态，观察者立刻拿到最新值。
+ */
+public abstract class TabFragment extends Fragment {
+    private TabLifecycleOwner tabLifecycleOwner;
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        tabLifecycleOwner = new TabLifecycleOwner(getViewLifecycleOwner(), isHidden());
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (tabLifecycleOwner != null) {
+            tabLifecycleOwner.setHidden(hidden);
+        }
+    }
+
+    /**
+     * 跟随视图生命周期、但标签隐藏时降到 CREATED 的 LifecycleOwner，只能在 onViewCreated 之后调用。
+     */
+    @NonNull
+    public LifecycleOwner getTabLifecycleOwner() {
+        if (tabLifecycleOwner == null) {
+            throw new IllegalStateException("标签页的视图还没有创建");
+        }
+        return tabLifecycleOwner;
+    }
+
+    private static class TabLifecycleOwner implements LifecycleOwner, LifecycleEventObserver {
+        private final LifecycleRegistry registry = new LifecycleRegistry(this);
+        private Lifecycle.State viewState;
+        private boolean hidden;
+
+        TabLifecycleOwner(LifecycleOwner viewOwner, boolean hidden) {
+            this.hidden = hidden;
+            this.viewState = viewOwner.getLifecycle().getCurrentState();
+            viewOwner.getLifecycle().addObserver(this);
+        }
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            viewState = event.getTargetState();
+            if (viewState == Lifecycle.State.DESTROYED) {
+                source.getLifecycle().removeObserver(this);
+            }
+            update();
+        }
+
+        void setHidden(boolean hidden) {
+            this.hidden = hidden;
+            update();
+        }
+
+        private void update() {
+            Lifecycle.State target = viewState;
+            if (hidden && target.isAtLeast(Lifecycle.State.STARTED)) {
+                target = Lifecycle.State.CREATED;
+            }
+            // 还没到 CREATED 就被销毁时直接跳过，LifecycleRegistry 不允许从 INITIALIZED 到 DESTROYED
+            if (target == Lifecycle.State.DESTROYED && registry.getCurrentState() == Lifecycle.State.INITIALIZED) {
+                return;
+            }
+            registry.setCurrentState(target);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.xie.mydaning.utils;
+
+/**
+ * {@link ReminderEngine} 挂闹钟的出口。准时闹钟（闹钟级或精确）和窗口闹钟各占一个位置，
+ * 同一位置再次设置即替换，所以同一时刻最多两个闹钟。
+ * 正式实现是 {@link SystemAlarmBackend}；测试里换成假实现统计唤醒次数。
+ */
+public interface AlarmBackend {
+    /** 闹钟级唤醒：状态栏显示闹钟图标，Doze 下也准时，只给经期这类不能错过的提醒用。 */
+    void setAlarmClock(long triggerAt);
+
+    /** 精确唤醒，Doze 下也允许触发。 */
+    void setExact(long triggerAt);
+
+    /** 在 [windowStart, windowStart + windowLength] 内任意时刻触发，系统可以与其他闹钟合并唤醒。 */
+    void setWindow(long windowStart, long windowLength);
+
+    /** 取消准时闹钟（{@link #setAlarmClock} 或 {@link #setExact} 设置的）。 */
+    void cancelStrict();
+
+    /** 取消窗口闹钟。 */
+    void cancelWindow();
+}
@@ -0,0 +1,228 @@
+package com.xie.mydaning.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.xie.mydaning.data.AlarmDriftLog;
+import com.xie.mydaning.data.PendingReminder;
+import com.xie.mydaning.data.PeriodDatabase;
+import com.xie.mydaning.data.ReminderDao;
+import com.xie.mydaning.receiver.ReminderDispatchReceiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 所有提醒共用的调度引擎。
+ *
+ * 待触发的提醒存在 Room 的 pending_reminders 表里，dueAt 索引让它成为按到期时间排序的优先队列。
+ * 闹钟的唤醒方式由提醒的 windowMillis 决定，见 {@link PendingReminder#ALARM_CLOCK}。系统里最多挂两个闹钟：
+ * 一个准时闹钟指向最早的闹钟级或精确提醒，一个窗口闹钟指向最早的可推迟提醒。窗口闹钟在 Doze 下可能被
+ * 拖很久，分开挂才不会让排在后面的经期提醒跟着晚到。闹钟响起时 {@link ReminderDispatchReceiver}
+ * 一次取出所有到期提醒处理，再重挂两个闹钟。安排、取消和重启后恢复都只按主键或索引读写几行，
+ * 代价是 O(log n)。
+ *
+ * 如果准时提醒或第二条可推迟提醒落在第一条的窗口里，就不单独为第一条唤醒，它在那次唤醒里一起处理。
+ *
+ * 每次安排和触发都记进 {@link AlarmDriftLog}，用来查看提醒实际晚了多少。
+ *
+ * 实例方法会读写数据库，只能在后台线程调用；界面和广播经 {@link #enqueue} 串行提交。
+ */
+public class ReminderEngine {
+    public static final String KIND_WATER = "water";
+    public static final String KIND_PERIOD = "period";
+
+    private static final String TAG = "ReminderEngine";
+    private static final String DRIFT_LOG_NAME = "alarm_drift.log";
+    private static final int DRIFT_LOG_CAPACITY = 1024; // 约 32KB，喝水提醒每天几十条，够看一两周
+
+    // 界面和广播接收器共用的后台线程。单线程执行，开关连点时安排和取消按提交顺序生效；
+    // 队列不设上限，广播和开机恢复的任务绝不丢弃（频繁的重新安排在提交方合并），
+    // 空闲 30 秒后线程退出，不在后台常驻
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static volatile ReminderEngine INSTANCE;
+
+    /**
+     * 处理一条到期提醒。处理时可以再调用 {@link #schedule} 安排下一次，闹钟在整批处理完后统一重挂。
+     */
+    public interface Handler {
+        void onDue(@NonNull ReminderEngine engine, @NonNull PendingReminder reminder);
+    }
+
+    private final ReminderDao dao;
+    private final AlarmBackend alarms;
+    private final AlarmDriftLog driftLog;
+    private boolean dispatching;
+
+    ReminderEngine(ReminderDao dao, AlarmBackend alarms) {
+        this(dao, alarms, null);
+    }
+
+    ReminderEngine(ReminderDao dao, AlarmBackend alarms, AlarmDriftLog driftLog) {
+        this.dao = dao;
+        this.alarms = alarms;
+        this.driftLog = driftLog;
+    }
+
+    public static ReminderEngine get(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ReminderEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ReminderEngine(PeriodDatabase.getDatabase(context).reminderDao(),
+                            new SystemAlarmBackend(context),
+                            new AlarmDriftLog(new File(context.getFilesDir(), DRIFT_LOG_NAME), DRIFT_LOG_CAPACITY));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * 在提醒队列的后台线程上按提交顺序执行任务。
+     */
+    public static void enqueue(Context context, Consumer<ReminderEngine> task) {
+        ReminderEngine engine = get(context);
+        executor.execute(() -> {
+            try {
+                task.accept(engine);
+            } catch (Exception e) {
+                Log.e(TAG, "处理提醒队列出错", e);
+            }
+        });
+    }
+
+    /**
+     * 安排一种闹钟级提醒，已有的同类提醒被替换。
+     */
+    public void schedule(@NonNull String kind, long dueAt, long payload) {
+        schedule(kind, dueAt, PendingReminder.ALARM_CLOCK, payload);
+    }
+
+    /**
+     * 安排一种提醒，已有的同类提醒被替换。
+     *
+     * @param windowMillis {@link PendingReminder#ALARM_CLOCK}、{@link PendingReminder#EXACT}
+     *                     或允许推迟的窗口长度
+     */
+    public void schedule(@NonNull String kind, long dueAt, long windowMillis, long payload) {
+        PendingReminder existing = dao.get(kind);
+        if (existing == null || existing.dueAt != dueAt || existing.windowMillis != windowMillis
+                || existing.payload != payload) {
+            dao.upsert(new PendingReminder(kind, dueAt, windowMillis, payload));
+            record(kind, AlarmDriftLog.EVENT_SCHEDULED, dueAt, System.currentTimeMillis());
+        }
+        if (!dispatching) {
+            rearm();
+        }
+    }
+
+    public void cancel(@NonNull String kind) {
+        if (dao.delete(kind) > 0) {
+            rearm();
+        }
+    }
+
+    public PendingReminder getPending(@NonNull String kind) {
+        return dao.get(kind);
+    }
+
+    /**
+     * 把所有到期提醒按到期先后交给 handler，然后为队列里剩下最早的一条重挂闹钟。
+     *
+     * 每条在 handler 返回后才从队列删除，进程在处理中途被杀时，没处理完的提醒下次唤醒还会再来。
+     *
+     * @return 本批处理的提醒数
+     */
+    public int dispatchDue(long now, @NonNull Handler handler) {
+        List<PendingReminder> due = dao.loadDue(now);
+        dispatching = true;
+        try {
+            for (PendingReminder reminder : due) {
+                record(reminder.kind, AlarmDriftLog.EVENT_FIRED, reminder.dueAt, now);
+                try {
+                    handler.onDue(this, reminder);
+                } catch (RuntimeException e) {
+                    // 一条出错不影响同批的其他提醒；出错的也删掉，否则过期的闹钟会立即重响、反复失败
+                    Log.e(TAG, "处理提醒失败: " + reminder.kind, e);
+                }
+                dao.deleteFired(reminder.kind, reminder.dueAt);
+            }
+        } finally {
+            dispatching = false;
+        }
+        rearm();
+        return due.size();
+    }
+
+    /** 可靠性日志，没有配置时为 null。 */
+    public AlarmDriftLog getDriftLog() {
+        return driftLog;
+    }
+
+    private void record(String kind, int event, long scheduledAt, long actualAt) {
+        if (driftLog == null) return;
+        try {
+            driftLog.append(kind, event, scheduledAt, actualAt);
+        } catch (IOException e) {
+            Log.w(TAG, "写入提醒日志失败", e);
+        }
+    }
+
+    /**
+     * 按队列重挂准时闹钟和窗口闹钟；队列为空时两个都取消。重启后调用即可恢复全部提醒。
+     */
+    public void rearm() {
+        PendingReminder strict = dao.loadEarliestStrict();
+        if (strict != null) {
+            arm(strict);
+        } else {
+            alarms.cancelStrict();
+        }
+
+        List<PendingReminder> windowed = dao.loadEarliestWindowed(2);
+        if (windowed.isEmpty()) {
+            alarms.cancelWindow();
+            if (strict == null) {
+                Log.d(TAG, "提醒队列为空，取消闹钟");
+            }
+            return;
+        }
+
+        PendingReminder first = windowed.get(0);
+        long deadline = first.dueAt + first.windowMillis;
+        if (strict != null && strict.dueAt >= first.dueAt && strict.dueAt <= deadline) {
+            // 准时闹钟落在窗口里，第一条顺带在它的唤醒里处理
+            alarms.cancelWindow();
+        } else if (windowed.size() > 1 && windowed.get(1).dueAt <= deadline) {
+            // 两个窗口重叠，挂在交集上，一次唤醒处理两条
+            PendingReminder second = windowed.get(1);
+            alarms.setWindow(second.dueAt, Math.min(deadline, second.dueAt + second.windowMillis) - second.dueAt);
+        } else {
+            arm(first);
+        }
+    }
+
+    private void arm(PendingReminder reminder) {
+        Log.d(TAG, "闹钟指向 " + reminder.kind);
+        if (reminder.windowMillis == PendingReminder.ALARM_CLOCK) {
+            alarms.setAlarmClock(reminder.dueAt);
+        } else if (reminder.windowMillis == PendingReminder.EXACT) {
+            alarms.setExact(reminder.dueAt);
+        } else {
+            alarms.setWindow(reminder.dueAt, reminder.windowMillis);
+        }
+    }
+}
@@ -1,220 +1,219 @@
 package com.xie.mydaning.utils;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 
-import com.xie.mydaning.receiver.WaterReminderReceiver;
-import com.xie.mydaning.receiver.PeriodReminderReceiver;
+import com.xie.mydaning.data.AlarmDriftLog;
+import com.xie.mydaning.data.PendingReminder;
+import com.xie.mydaning.data.PeriodDao;
+import com.xie.mydaning.data.PeriodDatabase;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * 使用 AlarmManager 安排/取消强提醒。
+ * 安排/取消强提醒。各类提醒都放进 {@link ReminderEngine} 的队列，由它统一挂闹钟。
+ * 方法可以在主线程调用，数据库读写在提醒队列的后台线程上完成。
+ *
+ * 只有经期提醒用闹钟级唤醒；喝水提醒默认挂 15 分钟（不超过间隔一半）的窗口闹钟，夜间免打扰时段不安排，
+ * 容差设为 0 时退回精确闹钟。容差和免打扰时段在设置页修改。喝水提醒的时刻落在从开启那一刻起的固定网格上。
  */
 public class ReminderScheduler {
     private static final String PREFS_NAME = "period_settings";
+    // 旧版本单独挂经期闹钟时保存的触发时间，可能早已过时，恢复时不再读取，只清掉
     private static final String KEY_PERIOD_REMINDER_TIME = "period_reminder_time";
     private static final long ONE_WEEK_MILLIS = 7L * 24L * 60L * 60L * 1000L;
 
+    // 喝水提醒的容差（分钟）和免打扰时段（当天 0 点起的分钟数，起止相同即关闭）
+    public static final String KEY_WATER_TOLERANCE = "water_tolerance_minutes";
+    public static final String KEY_QUIET_START = "water_quiet_start_minute";
+    public static final String KEY_QUIET_END = "water_quiet_end_minute";
+    // 开启喝水提醒的时刻，提醒网格的锚点；关闭时清除
+    private static final String KEY_WATER_ANCHOR = "water_anchor_millis";
+    public static final int DEFAULT_WATER_TOLERANCE = 15;
+    public static final int DEFAULT_QUIET_START = 22 * 60;
+    public static final int DEFAULT_QUIET_END = 8 * 60;
+
+    private static final AtomicBoolean waterReschedulePending = new AtomicBoolean();
+
     /**
-     * 安排喝水提醒（分钟级）- 使用精确闹钟，即使应用退出也能提醒
+     * 安排喝水提醒（分钟级），即使应用退出也能提醒
      * @param context 上下文
      * @param intervalMinutes 间隔分钟数（1-120分钟）
      */
     public static void scheduleWaterReminder(Context context, int intervalMinutes) {
-        if (intervalMinutes <= 0) intervalMinutes = 1;
         if (intervalMinutes < 1) intervalMinutes = 1; // 最小1分钟
 
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                2001,
-                new Intent(context, WaterReminderReceiver.class),
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        long intervalMillis = intervalMinutes * 60L * 1000L;
-        long triggerAt = System.currentTimeMillis() + intervalMillis;
-
-        alarmManager.cancel(pendingIntent);
-        
-        // 保存间隔设置，用于下次自动安排
+        // 保存间隔设置，用于下次自动安排；第一次开启时记下网格锚点，之后重新同步沿用原来的网格
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().putInt("water_interval_minutes", intervalMinutes).apply();
-        
-        // 使用系统闹钟 API (setAlarmClock)，这是最可靠的方法
-        // 即使应用被完全关闭、杀死，系统也会在指定时间触发
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                // 创建 AlarmClockInfo，用于在系统状态栏和锁屏显示
-                android.app.AlarmManager.AlarmClockInfo alarmClockInfo = 
-                    new android.app.AlarmManager.AlarmClockInfo(triggerAt, pendingIntent);
-                
-                alarmManager.setAlarmClock(alarmClockInfo, pendingIntent);
-                Log.d("ReminderScheduler", "✅ 使用系统闹钟API设置喝水提醒: " + intervalMinutes + "分钟后，触发时间: " + new java.util.Date(triggerAt));
-            } else {
-                // Android 5.0 以下使用传统方法
-                alarmManager.set(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                Log.d("ReminderScheduler", "安排喝水提醒: " + intervalMinutes + "分钟后，使用普通闹钟(Android < 5.1)，触发时间: " + new java.util.Date(triggerAt));
-            }
-        } catch (Exception e) {
-            Log.e("ReminderScheduler", "设置系统闹钟失败，尝试降级方案", e);
-            // 降级方案：使用精确闹钟
-            try {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                    Log.d("ReminderScheduler", "降级使用精确闹钟，触发时间: " + new java.util.Date(triggerAt));
-                } else {
-                    alarmManager.set(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                    Log.d("ReminderScheduler", "降级使用普通闹钟，触发时间: " + new java.util.Date(triggerAt));
-                }
-            } catch (Exception e2) {
-                Log.e("ReminderScheduler", "所有闹钟设置方法都失败", e2);
-            }
+        long now = System.currentTimeMillis();
+        SharedPreferences.Editor editor = prefs.edit().putInt("water_interval_minutes", intervalMinutes);
+        if (prefs.getLong(KEY_WATER_ANCHOR, -1L) <= 0) {
+            editor.putLong(KEY_WATER_ANCHOR, now);
+        }
+        editor.apply();
+
+        // 拖动间隔条时每一格都会调用；队列里已有一个还没执行的重新安排就不再提交，
+        // 它执行时读的是最新的设置
+        if (waterReschedulePending.compareAndSet(false, true)) {
+            Context appContext = context.getApplicationContext();
+            ReminderEngine.enqueue(appContext, engine -> {
+                waterReschedulePending.set(false);
+                WaterReminderPlan plan = loadWaterPlan(appContext);
+                scheduleNextWater(engine, plan, System.currentTimeMillis(), ZoneId.systemDefault());
+                Log.d("ReminderScheduler", "安排喝水提醒: 每" + plan.intervalMillis / WaterReminderPlan.MINUTE_MILLIS
+                        + "分钟，容差 " + plan.toleranceMillis / 1000L + " 秒");
+            });
         }
     }
 
+    /**
+     * 按设置里的间隔、容差和免打扰时段生成喝水提醒规则。
+     */
+    public static WaterReminderPlan loadWaterPlan(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long anchor = prefs.getLong(KEY_WATER_ANCHOR, -1L);
+        return new WaterReminderPlan(
+                anchor > 0 ? anchor : System.currentTimeMillis(),
+                prefs.getInt("water_interval_minutes", 1),
+                prefs.getInt(KEY_WATER_TOLERANCE, DEFAULT_WATER_TOLERANCE),
+                prefs.getInt(KEY_QUIET_START, DEFAULT_QUIET_START),
+                prefs.getInt(KEY_QUIET_END, DEFAULT_QUIET_END));
+    }
+
+    /**
+     * 把 after 之后的下一个网格点放进队列。只能在提醒队列的线程上调用。
+     */
+    public static void scheduleNextWater(ReminderEngine engine, WaterReminderPlan plan, long after, ZoneId zone) {
+        long dueAt = plan.nextDue(after, zone);
+        long window = plan.toleranceMillis > 0 ? plan.toleranceMillis : PendingReminder.EXACT;
+        engine.schedule(ReminderEngine.KIND_WATER, dueAt, window, 0);
+    }
+
     public static void cancelWaterReminder(Context context) {
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                2001,
-                new Intent(context, WaterReminderReceiver.class),
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-        alarmManager.cancel(pendingIntent);
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().remove(KEY_WATER_ANCHOR).apply();
+        // 排在取消之前的重新安排不能再合并之后的开启，否则开关连点后提醒会停在取消状态
+        waterReschedulePending.set(false);
+        ReminderEngine.enqueue(context, engine -> engine.cancel(ReminderEngine.KIND_WATER));
+    }
+
+    /**
+     * 按预测区间安排经期提醒：在最早可能开始的那天之前一周提醒。
+     */
+    public static void schedulePeriodReminder(Context context, CyclePredictor.Forecast forecast) {
+        if (forecast == null) return;
+        schedulePeriodReminder(context, DateUtils.fromEpochDay(forecast.earliestDay));
     }
 
     /**
-     * 提前一周提醒预计经期。
+     * 提前一周提醒预计经期，规则见 {@link #schedulePeriodReminder(ReminderEngine, int, long)}。
+     * 首页每次拿到预测都会调用，重复调用不会重复提醒。
      */
     public static void schedulePeriodReminder(Context context, java.util.Date nextPeriodDate) {
         if (nextPeriodDate == null) return;
 
-        long target = com.xie.mydaning.utils.DateUtils.getStartOfDay(nextPeriodDate).getTime() - ONE_WEEK_MILLIS;
-        long now = System.currentTimeMillis();
-        if (target < now + 5_000) {
-            target = now + 5_000; // 太近则尽快提醒
-        }
+        int periodDay = DateUtils.toEpochDay(nextPeriodDate);
+        ReminderEngine.enqueue(context,
+                engine -> schedulePeriodReminder(engine, periodDay, System.currentTimeMillis()));
+    }
 
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                2002,
-                new Intent(context, PeriodReminderReceiver.class),
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        alarmManager.cancel(pendingIntent);
-        
-        // 使用系统闹钟 API (setAlarmClock)，这是最可靠的方法
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                // 创建 AlarmClockInfo，用于在系统状态栏和锁屏显示
-                android.app.AlarmManager.AlarmClockInfo alarmClockInfo = 
-                    new android.app.AlarmManager.AlarmClockInfo(target, pendingIntent);
-                
-                alarmManager.setAlarmClock(alarmClockInfo, pendingIntent);
-                Log.d("ReminderScheduler", "✅ 使用系统闹钟API设置经期提醒，触发时间: " + new java.util.Date(target));
-            } else {
-                // Android 5.0 以下使用传统方法
-                alarmManager.set(AlarmManager.RTC_WAKEUP, target, pendingIntent);
-                Log.d("ReminderScheduler", "设置经期提醒(Android < 5.1)，触发时间: " + new java.util.Date(target));
-            }
-        } catch (Exception e) {
-            Log.e("ReminderScheduler", "设置系统闹钟失败，尝试降级方案", e);
-            // 降级方案：使用精确闹钟
-            try {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, target, pendingIntent);
-                    Log.d("ReminderScheduler", "降级使用精确闹钟，触发时间: " + new java.util.Date(target));
-                } else {
-                    alarmManager.set(AlarmManager.RTC_WAKEUP, target, pendingIntent);
-                    Log.d("ReminderScheduler", "降级使用普通闹钟，触发时间: " + new java.util.Date(target));
-                }
-            } catch (Exception e2) {
-                Log.e("ReminderScheduler", "所有闹钟设置方法都失败", e2);
+    public static void cancelPeriodReminder(Context context) {
+        ReminderEngine.enqueue(context, engine -> engine.cancel(ReminderEngine.KIND_PERIOD));
+    }
+
+    /**
+     * 设备重启后闹钟会丢失：重新安排喝水提醒，按数据库里的记录重新预测经期提醒，
+     * 再按队列里最早的一条重新挂上。只能在提醒队列的线程上调用。
+     */
+    public static void restoreReminders(Context context, ReminderEngine engine) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        if (prefs.getBoolean("water_reminder", true)) {
+            if (prefs.getLong(KEY_WATER_ANCHOR, -1L) <= 0) {
+                prefs.edit().putLong(KEY_WATER_ANCHOR, now).apply();
             }
+            scheduleNextWater(engine, loadWaterPlan(context), now, ZoneId.systemDefault());
+        }
+        if (prefs.contains(KEY_PERIOD_REMINDER_TIME)) {
+            prefs.edit().remove(KEY_PERIOD_REMINDER_TIME).apply();
         }
 
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().putLong(KEY_PERIOD_REMINDER_TIME, target).apply();
+        if (prefs.getBoolean("period_reminder", true)) {
+            restorePeriodReminder(PeriodDatabase.getDatabase(context).periodDao(), engine, now);
+        } else {
+            engine.cancel(ReminderEngine.KIND_PERIOD);
+        }
+        engine.rearm();
     }
 
-    public static void cancelPeriodReminder(Context context) {
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                2002,
-                new Intent(context, PeriodReminderReceiver.class),
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-        alarmManager.cancel(pendingIntent);
+    /**
+     * 只读开始日重新预测，和首页用同一个预测器，结果与首页显示的一致。
+     */
+    static void restorePeriodReminder(PeriodDao dao, ReminderEngine engine, long now) {
+        List<Integer> days = dao.loadStartDays();
+        int[] startDays = new int[days.size()];
+        for (int i = 0; i < startDays.length; i++) {
+            startDays[i] = days.get(i);
+        }
+        CyclePredictor.Forecast forecast =
+                PeriodCalculator.forecast(startDays, startDays.length, new WeightedRecentPredictor());
+        if (forecast == null) {
+            engine.cancel(ReminderEngine.KIND_PERIOD);
+            return;
+        }
 
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().remove(KEY_PERIOD_REMINDER_TIME).apply();
+        schedulePeriodReminder(engine, forecast.earliestDay, now);
     }
 
     /**
-     * 设备重启后恢复经期提醒；依赖之前保存的 trigger 时间戳。
+     * 首页安排和开机恢复共用的经期提醒规则。只能在提醒队列的线程上调用。
      */
-    public static void restorePeriodReminderIfNeeded(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        long target = prefs.getLong(KEY_PERIOD_REMINDER_TIME, -1L);
-        if (target <= 0) return;
-
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                2002,
-                new Intent(context, PeriodReminderReceiver.class),
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        alarmManager.cancel(pendingIntent);
-        
-        // 使用系统闹钟 API (setAlarmClock)，这是最可靠的方法
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                // 创建 AlarmClockInfo，用于在系统状态栏和锁屏显示
-                android.app.AlarmManager.AlarmClockInfo alarmClockInfo = 
-                    new android.app.AlarmManager.AlarmClockInfo(target, pendingIntent);
-                
-                alarmManager.setAlarmClock(alarmClockInfo, pendingIntent);
-                Log.d("ReminderScheduler", "✅ 使用系统闹钟API恢复经期提醒，触发时间: " + new java.util.Date(target));
-            } else {
-                // Android 5.0 以下使用传统方法
-                alarmManager.set(AlarmManager.RTC_WAKEUP, target, pendingIntent);
-                Log.d("ReminderScheduler", "恢复经期提醒(Android < 5.1)，触发时间: " + new java.util.Date(target));
-            }
-        } catch (Exception e) {
-            Log.e("ReminderScheduler", "设置系统闹钟失败，尝试降级方案", e);
-            // 降级方案：使用精确闹钟
-            try {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, target, pendingIntent);
-                    Log.d("ReminderScheduler", "降级使用精确闹钟，触发时间: " + new java.util.Date(target));
-                } else {
-                    alarmManager.set(AlarmManager.RTC_WAKEUP, target, pendingIntent);
-                    Log.d("ReminderScheduler", "降级使用普通闹钟，触发时间: " + new java.util.Date(target));
-                }
-            } catch (Exception e2) {
-                Log.e("ReminderScheduler", "所有闹钟设置方法都失败", e2);
-            }
+    static void schedulePeriodReminder(ReminderEngine engine, int periodDay, long now) {
+        long target = periodReminderTarget(periodDay);
+        PendingReminder pending = engine.getPending(ReminderEngine.KIND_PERIOD);
+        if (target > now) {
+            engine.schedule(ReminderEngine.KIND_PERIOD, target, periodDay);
+        } else if (pending != null) {
+            // 还没送达的提醒（比如关机期间错过的）照原时刻补发，日期换成新的预测
+            engine.schedule(ReminderEngine.KIND_PERIOD, pending.dueAt, periodDay);
+        } else {
+            // 提前一周的时刻已过且队列里没有，说明这一次已经提醒过，不再每次启动或编辑后重复提醒
+            return;
         }
+        Log.d("ReminderScheduler", "安排经期提醒，预计最早 " + DateUtils.formatDate(periodDay));
+    }
+
+    /** 预计开始日前一周的 0 点。 */
+    static long periodReminderTarget(int periodDay) {
+        return DateUtils.getStartOfDay(DateUtils.fromEpochDay(periodDay)).getTime() - ONE_WEEK_MILLIS;
+    }
+
+    /**
+     * 各类提醒最近触发延迟的分位数，供设置页展示；还没有记录时返回空字符串。
+     * 要读整个日志文件，只能在提醒队列的线程上调用，和写入串行。
+     */
+    public static String describeDrift(ReminderEngine engine) {
+        AlarmDriftLog log = engine.getDriftLog();
+        if (log == null) return "";
+        StringBuilder text = new StringBuilder();
+        appendDrift(text, "喝水提醒", log.driftStats(ReminderEngine.KIND_WATER));
+        appendDrift(text, "经期提醒", log.driftStats(ReminderEngine.KIND_PERIOD));
+        return text.toString();
     }
-}
 
+    private static void appendDrift(StringBuilder text, String label, AlarmDriftLog.DriftStats stats) {
+        if (stats.count == 0) return;
+        text.append(label).append("延迟(").append(stats.count).append("次): ")
+                .append("P50 ").append(formatDrift(stats.p50))
+                .append(" / P90 ").append(formatDrift(stats.p90))
+                .append(" / P99 ").append(formatDrift(stats.p99))
+                .append("\n");
+    }
+
+    private static String formatDrift(long millis) {
+        long seconds = Math.max(0, millis) / 1000L;
+        return seconds < 60 ? seconds + "秒" : seconds / 60 + "分" + seconds % 60 + "秒";
+    }
+}
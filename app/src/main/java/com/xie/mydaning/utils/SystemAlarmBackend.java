@@ -0,0 +1,96 @@
+package com.xie.mydaning.utils;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.xie.mydaning.receiver.ReminderDispatchReceiver;
+
+import java.util.Date;
+
+/**
+ * 用 AlarmManager 实现的 {@link AlarmBackend}。闹钟级和精确闹钟共用一个 PendingIntent，
+ * 窗口闹钟用另一个，因此系统里最多两个提醒闹钟，都送到 {@link ReminderDispatchReceiver}。
+ */
+public class SystemAlarmBackend implements AlarmBackend {
+    static final int REQUEST_CODE = 2000;
+    static final int WINDOW_REQUEST_CODE = 2001;
+    private static final String TAG = "SystemAlarmBackend";
+
+    private final Context context;
+
+    public SystemAlarmBackend(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void setAlarmClock(long triggerAt) {
+        AlarmManager alarmManager = alarmManager();
+        if (alarmManager == null) return;
+        PendingIntent pendingIntent = dispatchIntent(context, REQUEST_CODE);
+        // 使用系统闹钟 API (setAlarmClock)，即使应用被关闭、设备处于 Doze 也会按时触发
+        try {
+            alarmManager.setAlarmClock(new AlarmManager.AlarmClockInfo(triggerAt, pendingIntent), pendingIntent);
+            Log.d(TAG, "设置系统闹钟，触发时间: " + new Date(triggerAt));
+        } catch (Exception e) {
+            Log.e(TAG, "设置系统闹钟失败，尝试降级方案", e);
+            setExact(triggerAt);
+        }
+    }
+
+    @Override
+    public void setExact(long triggerAt) {
+        AlarmManager alarmManager = alarmManager();
+        if (alarmManager == null) return;
+        PendingIntent pendingIntent = dispatchIntent(context, REQUEST_CODE);
+        try {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+            Log.d(TAG, "设置精确闹钟，触发时间: " + new Date(triggerAt));
+        } catch (Exception e) {
+            // 没有精确闹钟权限时退回非精确闹钟
+            Log.e(TAG, "设置精确闹钟失败，改用非精确闹钟", e);
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        }
+    }
+
+    @Override
+    public void setWindow(long windowStart, long windowLength) {
+        AlarmManager alarmManager = alarmManager();
+        if (alarmManager == null) return;
+        // Android 12 起不足 10 分钟的窗口会被系统放宽到 10 分钟
+        alarmManager.setWindow(AlarmManager.RTC_WAKEUP, windowStart, windowLength,
+                dispatchIntent(context, WINDOW_REQUEST_CODE));
+        Log.d(TAG, "设置窗口闹钟，开始时间: " + new Date(windowStart) + "，窗口 " + windowLength / 1000 + " 秒");
+    }
+
+    @Override
+    public void cancelStrict() {
+        cancel(REQUEST_CODE);
+    }
+
+    @Override
+    public void cancelWindow() {
+        cancel(WINDOW_REQUEST_CODE);
+    }
+
+    private void cancel(int requestCode) {
+        AlarmManager alarmManager = alarmManager();
+        if (alarmManager == null) return;
+        alarmManager.cancel(dispatchIntent(context, requestCode));
+    }
+
+    private AlarmManager alarmManager() {
+        return (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    static PendingIntent dispatchIntent(Context context, int requestCode) {
+        return PendingIntent.getBroadcast(
+                context,
+                requestCode,
+                new Intent(context, ReminderDispatchReceiver.class),
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+}
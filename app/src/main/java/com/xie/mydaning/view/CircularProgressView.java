@@ -5,6 +5,7 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.RectF;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 
 import androidx.core.content.ContextCompat;
@@ -12,12 +13,33 @@ import androidx.core.content.ContextCompat;
 import com.xie.mydaning.R;
 
 public class CircularProgressView extends View {
+    private static final long ANIMATION_DURATION_NANOS = 400_000_000L;
+    
+    // 0%~100% 的文字预先生成，动画的每一帧直接取用
+    private static final String[] PERCENT_TEXT = new String[101];
+    static {
+        for (int i = 0; i <= 100; i++) {
+            PERCENT_TEXT[i] = i + "%";
+        }
+    }
+    
     private Paint backgroundPaint;
     private Paint progressPaint;
     private Paint textPaint;
     private RectF rectF;
     private float progress = 0f;
-    private String progressText = "0%";
+    private String progressText;
+    
+    // 圆弧和文字位置只在尺寸变化时计算
+    private float centerX;
+    private float textY;
+    
+    // 动画由 Choreographer 按帧驱动：从 animateFrom 走到 animateTo
+    private final Choreographer.FrameCallback frameCallback = this::onAnimationFrame;
+    private float animateFrom;
+    private float animateTo;
+    private long animationStartNanos = -1L;
+    private boolean animating;
     
     public CircularProgressView(Context context) {
         super(context);
@@ -56,26 +78,97 @@ public class CircularProgressView extends View {
         rectF = new RectF();
     }
     
+    /**
+     * 立即跳到指定进度（0~100），正在进行的动画会被取消。
+     */
     public void setProgress(float progress) {
-        this.progress = Math.max(0f, Math.min(100f, progress));
-        this.progressText = String.format("%.0f%%", this.progress);
+        cancelAnimation();
+        this.progress = clamp(progress);
+        this.progressText = null;
         invalidate();
     }
     
+    /**
+     * 从当前显示的进度平滑过渡到指定进度（0~100）。
+     */
+    public void animateProgress(float target) {
+        float to = clamp(target);
+        if (animating ? to == animateTo : to == progress) {
+            return;
+        }
+        progressText = null;
+        animateFrom = progress;
+        animateTo = to;
+        // 起始时间取第一帧的时间戳，和屏幕刷新对齐
+        animationStartNanos = -1L;
+        if (!animating) {
+            animating = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+    
+    public float getProgress() {
+        return progress;
+    }
+    
     public void setProgressText(String text) {
         this.progressText = text;
         invalidate();
     }
     
+    private void onAnimationFrame(long frameTimeNanos) {
+        if (!animating) {
+            return;
+        }
+        if (animationStartNanos < 0) {
+            animationStartNanos = frameTimeNanos;
+        }
+        float t = Math.min(1f, (frameTimeNanos - animationStartNanos) / (float) ANIMATION_DURATION_NANOS);
+        // 减速曲线：1 - (1 - t)^2
+        float eased = 1f - (1f - t) * (1f - t);
+        progress = animateFrom + (animateTo - animateFrom) * eased;
+        invalidate();
+        if (t < 1f) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            animating = false;
+        }
+    }
+    
+    private void cancelAnimation() {
+        if (animating) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            animating = false;
+        }
+    }
+    
+    private static float clamp(float progress) {
+        return Math.max(0f, Math.min(100f, progress));
+    }
+    
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        
-        float centerX = getWidth() / 2f;
-        float centerY = getHeight() / 2f;
+    protected void onDetachedFromWindow() {
+        // 离开窗口时直接落到终点，不再占用帧回调
+        if (animating) {
+            cancelAnimation();
+            progress = animateTo;
+        }
+        super.onDetachedFromWindow();
+    }
+    
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        centerX = w / 2f;
+        float centerY = h / 2f;
         float radius = Math.min(centerX, centerY) - 8f;
-        
         rectF.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+        textY = centerY - (textPaint.descent() + textPaint.ascent()) / 2f;
+    }
+    
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
         
         // 绘制背景圆
         canvas.drawArc(rectF, -90f, 360f, false, backgroundPaint);
@@ -85,8 +178,7 @@ public class CircularProgressView extends View {
         canvas.drawArc(rectF, -90f, sweepAngle, false, progressPaint);
         
         // 绘制文本
-        float textY = centerY - (textPaint.descent() + textPaint.ascent()) / 2f;
-        canvas.drawText(progressText, centerX, textY, textPaint);
+        String text = progressText != null ? progressText : PERCENT_TEXT[Math.round(progress)];
+        canvas.drawText(text, centerX, textY, textPaint);
     }
 }
-
@@ -0,0 +1,395 @@
+package com.xie.mydaning.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.DashPathEffect;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import androidx.core.content.ContextCompat;
+
+import com.xie.mydaning.R;
+
+import java.util.Arrays;
+
+/**
+ * 周期长度折线图。数据是一组 int 周期长度，按时间先后等间距排开，最后可接一段虚线表示预测。
+ *
+ * 点多到一屏放不下时可以左右拖动，默认停在最新的一端。只画可见范围内的点；
+ * Path 按一屏最多的点数预留空间，标签文字在数据变化时生成，onDraw 里不分配对象。
+ *
+ * 历史很长时也可以改为概览：传入按开始日排列的点（通常是按月或按年平均、降采样后的结果），
+ * 按日期比例铺满一屏，不滚动。一屏能放下的点数见 {@link #getOverviewCapacity()}。
+ */
+public class CycleChartView extends View {
+    private static final float POINT_SPACING_DP = 36f;
+    private static final float PADDING_DP = 16f;
+    // 概览里相邻两点至少相隔的距离
+    private static final float OVERVIEW_MIN_SPACING_DP = 6f;
+    // y 轴上下各留出的天数，避免折线贴边
+    private static final int VALUE_MARGIN = 2;
+
+    private Paint linePaint;
+    private Paint pointPaint;
+    private Paint holePaint;
+    private Paint forecastPaint;
+    private Paint labelPaint;
+    private final Path linePath = new Path();
+    private final Path forecastPath = new Path();
+
+    private int[] lengths = new int[64];
+    private int count;
+    private int forecast;
+    private int minValue;
+    private int maxValue;
+    // 概览模式的数据：x 为开始日（epoch day），y 为周期长度
+    private boolean overview;
+    private float[] overviewX = new float[64];
+    private float[] overviewY = new float[64];
+    private int overviewCount;
+    private int overviewLastStart;
+    private String minLabel = "";
+    private String maxLabel = "";
+
+    private float spacing;
+    private float padding;
+    private float pointRadius;
+    private float scrollOffset;
+    private boolean pinnedToEnd = true;
+    private int touchSlop;
+    private float downX;
+    private float lastX;
+    private boolean dragging;
+
+    public CycleChartView(Context context) {
+        super(context);
+        init();
+    }
+
+    public CycleChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    public CycleChartView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+
+    private void init() {
+        float density = getResources().getDisplayMetrics().density;
+        int color = ContextCompat.getColor(getContext(), R.color.primary_color);
+        spacing = POINT_SPACING_DP * density;
+        padding = PADDING_DP * density;
+        pointRadius = 5f * density;
+        touchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+
+        linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        linePaint.setColor(color);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(3f * density);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+
+        pointPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        pointPaint.setColor(color);
+        pointPaint.setStyle(Paint.Style.FILL);
+
+        holePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        holePaint.setColor(ContextCompat.getColor(getContext(), R.color.white));
+        holePaint.setStyle(Paint.Style.FILL);
+
+        forecastPaint = new Paint(linePaint);
+        forecastPaint.setStrokeWidth(2f * density);
+        forecastPaint.setPathEffect(new DashPathEffect(new float[]{10f * density, 8f * density}, 0f));
+
+        labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        labelPaint.setColor(ContextCompat.getColor(getContext(), R.color.text_secondary));
+        labelPaint.setTextSize(11f * density);
+    }
+
+    /**
+     * 替换全部周期长度（按时间先后），会复制一份。
+     */
+    public void setCycles(int[] cycleLengths, int cycleCount) {
+        lengths = ensureCapacity(lengths, cycleCount);
+        System.arraycopy(cycleLengths, 0, lengths, 0, cycleCount);
+        count = cycleCount;
+        overview = false;
+        onDataChanged();
+    }
+
+    /**
+     * 切换为概览，替换全部点（会复制一份）。x 为升序的开始日，y 为周期长度；
+     * lastStart 是进行中周期的开始日，预测点画在这里。
+     */
+    public void setOverview(float[] x, float[] y, int pointCount, int lastStart) {
+        if (overviewX.length < pointCount) {
+            int capacity = Math.max(pointCount, overviewX.length * 2);
+            overviewX = new float[capacity];
+            overviewY = new float[capacity];
+            linePath.incReserve(capacity);
+        }
+        System.arraycopy(x, 0, overviewX, 0, pointCount);
+        System.arraycopy(y, 0, overviewY, 0, pointCount);
+        overviewCount = pointCount;
+        overviewLastStart = lastStart;
+        overview = true;
+        onDataChanged();
+    }
+
+    public boolean isOverview() {
+        return overview;
+    }
+
+    /**
+     * 概览一屏最多能画的点数；还没布局时按屏幕宽度估算。
+     */
+    public int getOverviewCapacity() {
+        int width = getWidth() > 0 ? getWidth() : getResources().getDisplayMetrics().widthPixels;
+        float minSpacing = OVERVIEW_MIN_SPACING_DP * getResources().getDisplayMetrics().density;
+        return Math.max(3, (int) ((width - padding * 2) / minSpacing) + 1);
+    }
+
+    /**
+     * 在末尾追加一个周期，已有数据不动。只用于逐个周期的模式。
+     */
+    public void appendCycle(int cycleLength) {
+        lengths = ensureCapacity(lengths, count + 1);
+        lengths[count++] = cycleLength;
+        onDataChanged();
+    }
+
+    /**
+     * 预测的下一个周期长度，不大于 0 表示不显示预测。
+     */
+    public void setForecast(int cycleLength) {
+        if (forecast != cycleLength) {
+            forecast = cycleLength;
+            onDataChanged();
+        }
+    }
+
+    public int getCycleCount() {
+        return count;
+    }
+
+    private void onDataChanged() {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        if (overview) {
+            for (int i = 0; i < overviewCount; i++) {
+                min = Math.min(min, (int) Math.floor(overviewY[i]));
+                max = Math.max(max, (int) Math.ceil(overviewY[i]));
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, lengths[i]);
+                max = Math.max(max, lengths[i]);
+            }
+        }
+        if (hasForecast()) {
+            min = Math.min(min, forecast);
+            max = Math.max(max, forecast);
+        }
+        if (min > max) {
+            min = max = 0;
+        }
+        // 标签只在范围变化时重新生成
+        if (min != minValue || max != maxValue || minLabel.isEmpty()) {
+            minValue = min;
+            maxValue = max;
+            minLabel = min + "天";
+            maxLabel = max + "天";
+        }
+        clampScroll();
+        invalidate();
+    }
+
+    private boolean hasForecast() {
+        return forecast > 0 && (overview ? overviewCount > 0 : count > 0);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // 一屏最多能画下的点数，再多留两个跨出边缘的
+        int visiblePoints = (int) Math.ceil(w / spacing) + 3;
+        linePath.incReserve(visiblePoints);
+        forecastPath.incReserve(2);
+        clampScroll();
+    }
+
+    private float contentWidth() {
+        if (overview) {
+            return getWidth();
+        }
+        int points = count + (hasForecast() ? 1 : 0);
+        return Math.max(0, points - 1) * spacing + padding * 2;
+    }
+
+    private float maxScroll() {
+        return Math.max(0f, contentWidth() - getWidth());
+    }
+
+    private void clampScroll() {
+        float max = maxScroll();
+        scrollOffset = pinnedToEnd ? max : Math.max(0f, Math.min(scrollOffset, max));
+    }
+
+    /** 当前横向滚动位置，0 为最早一端。 */
+    float getScrollOffset() {
+        return scrollOffset;
+    }
+
+    void scrollChartBy(float dx) {
+        float max = maxScroll();
+        scrollOffset = Math.max(0f, Math.min(scrollOffset + dx, max));
+        pinnedToEnd = scrollOffset >= max;
+        invalidate();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (maxScroll() <= 0f) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                downX = lastX = event.getX();
+                dragging = false;
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (!dragging && Math.abs(event.getX() - downX) > touchSlop) {
+                    // 横向拖动时不让外层 ScrollView 抢走事件
+                    dragging = true;
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                if (dragging) {
+                    scrollChartBy(lastX - event.getX());
+                }
+                lastX = event.getX();
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (!dragging) {
+                    performClick();
+                }
+                dragging = false;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                dragging = false;
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (overview ? overviewCount == 0 : count == 0) {
+            return;
+        }
+
+        float top = padding + labelPaint.getTextSize();
+        float bottom = getHeight() - padding;
+        canvas.drawText(maxLabel, 0f, top - labelPaint.descent(), labelPaint);
+        canvas.drawText(minLabel, 0f, bottom + labelPaint.getTextSize(), labelPaint);
+        if (overview) {
+            drawOverview(canvas, top, bottom);
+            return;
+        }
+
+        // 只处理可见范围内的点，两侧各多画一个，保证线段延伸到边缘
+        int first = Math.max(0, (int) Math.floor((scrollOffset - padding) / spacing) - 1);
+        int last = Math.min(count - 1, (int) Math.ceil((scrollOffset + getWidth() - padding) / spacing) + 1);
+        linePath.rewind();
+        for (int i = first; i <= last; i++) {
+            float x = xAt(i);
+            float y = yFor(lengths[i], top, bottom);
+            if (i == first) {
+                linePath.moveTo(x, y);
+            } else {
+                linePath.lineTo(x, y);
+            }
+        }
+        canvas.drawPath(linePath, linePaint);
+
+        if (hasForecast() && last == count - 1) {
+            float x0 = xAt(count - 1);
+            float y0 = yFor(lengths[count - 1], top, bottom);
+            float x1 = xAt(count);
+            float y1 = yFor(forecast, top, bottom);
+            forecastPath.rewind();
+            forecastPath.moveTo(x0, y0);
+            forecastPath.lineTo(x1, y1);
+            canvas.drawPath(forecastPath, forecastPaint);
+            canvas.drawCircle(x1, y1, pointRadius * 0.8f, pointPaint);
+            canvas.drawCircle(x1, y1, pointRadius * 0.4f, holePaint);
+        }
+
+        for (int i = first; i <= last; i++) {
+            canvas.drawCircle(xAt(i), yFor(lengths[i], top, bottom), pointRadius, pointPaint);
+        }
+    }
+
+    private void drawOverview(Canvas canvas, float top, float bottom) {
+        float firstDay = overviewX[0];
+        float lastDay = hasForecast() ? Math.max(overviewLastStart, overviewX[overviewCount - 1])
+                : overviewX[overviewCount - 1];
+        float scale = lastDay > firstDay ? (getWidth() - padding * 2) / (lastDay - firstDay) : 0f;
+
+        linePath.rewind();
+        for (int i = 0; i < overviewCount; i++) {
+            float x = padding + (overviewX[i] - firstDay) * scale;
+            float y = yFor(overviewY[i], top, bottom);
+            if (i == 0) {
+                linePath.moveTo(x, y);
+            } else {
+                linePath.lineTo(x, y);
+            }
+        }
+        canvas.drawPath(linePath, linePaint);
+
+        float dotRadius = pointRadius * 0.6f;
+        if (hasForecast()) {
+            float x0 = padding + (overviewX[overviewCount - 1] - firstDay) * scale;
+            float y0 = yFor(overviewY[overviewCount - 1], top, bottom);
+            float x1 = padding + (lastDay - firstDay) * scale;
+            float y1 = yFor(forecast, top, bottom);
+            forecastPath.rewind();
+            forecastPath.moveTo(x0, y0);
+            forecastPath.lineTo(x1, y1);
+            canvas.drawPath(forecastPath, forecastPaint);
+            canvas.drawCircle(x1, y1, dotRadius, pointPaint);
+            canvas.drawCircle(x1, y1, dotRadius * 0.5f, holePaint);
+        }
+
+        for (int i = 0; i < overviewCount; i++) {
+            canvas.drawCircle(padding + (overviewX[i] - firstDay) * scale,
+                    yFor(overviewY[i], top, bottom), dotRadius, pointPaint);
+        }
+    }
+
+    private float xAt(int index) {
+        return padding + index * spacing - scrollOffset;
+    }
+
+    private float yFor(float value, float top, float bottom) {
+        float low = minValue - VALUE_MARGIN;
+        float high = maxValue + VALUE_MARGIN;
+        return bottom - (value - low) / (high - low) * (bottom - top);
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
@@ -5,75 +5,159 @@ import android.app.Application;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
+import com.xie.mydaning.data.HistoryPagingSource;
 import com.xie.mydaning.data.PeriodRecord;
 import com.xie.mydaning.data.PeriodRepository;
+import com.xie.mydaning.data.PeriodSnapshotSource;
+import com.xie.mydaning.data.StatsSnapshot;
+import com.xie.mydaning.utils.CyclePredictor;
+import com.xie.mydaning.utils.DateUtils;
 import com.xie.mydaning.utils.PeriodCalculator;
+import com.xie.mydaning.utils.PeriodStatsAggregator;
+import com.xie.mydaning.utils.WeightedRecentPredictor;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PeriodViewModel extends AndroidViewModel {
+    // 历史页每页 50 条，距边缘 50 条时预取；内存里最多留 250 条，滚远的页会被丢掉、回滚时再按键重读
+    private static final PagingConfig HISTORY_PAGING = new PagingConfig(50, 50, false, 100, 250);
+    
     private PeriodRepository repository;
-    private LiveData<List<PeriodRecord>> allRecords;
-    private LiveData<List<PeriodRecord>> allStartRecords;
-    private LiveData<List<PeriodRecord>> allEndRecords;
+    // 图表用的开始记录，来自统计用的同一份快照，不再单独查库
+    private final MutableLiveData<List<PeriodRecord>> startRecords = new MutableLiveData<>();
+    
+    // 历史页筛选："all" / "month" / "year"。每种筛选的分页结果各留一份，切回来时直接显示已加载的页
+    private final MutableLiveData<String> historyFilter = new MutableLiveData<>("all");
+    private final Map<String, LiveData<PagingData<PeriodRecord>>> filterResults = new HashMap<>();
+    private final LiveData<PagingData<PeriodRecord>> filteredRecords;
     
     private MutableLiveData<Integer> averageCycle = new MutableLiveData<>(28);
     private MutableLiveData<Integer> averagePeriod = new MutableLiveData<>(5);
     private MutableLiveData<Integer> regularity = new MutableLiveData<>(0);
     private MutableLiveData<PeriodCalculator.CurrentPeriodStatus> currentPeriodStatus = new MutableLiveData<>();
+    private MutableLiveData<CyclePredictor.Forecast> forecast = new MutableLiveData<>();
+    
+    // 统计结果增量维护，每次数据变化只处理变动的那条记录；只在快照线程上访问
+    private final PeriodStatsAggregator statsAggregator = new PeriodStatsAggregator();
+    private final PeriodSnapshotSource snapshotSource;
+    private final CyclePredictor predictor = new WeightedRecentPredictor();
+    private CyclePredictor.Forecast postedForecast;
+    private StatsSnapshot savedSnapshot;
     
     public PeriodViewModel(Application application) {
         super(application);
         repository = new PeriodRepository(application);
-        allRecords = repository.getAllRecords();
-        allStartRecords = repository.getAllStartRecords();
-        allEndRecords = repository.getAllEndRecords();
+        filteredRecords = Transformations.switchMap(historyFilter, this::getFilterResult);
         
-        // 观察数据变化，自动更新统计数据
-        allStartRecords.observeForever(startRecords -> {
-            if (startRecords != null) {
-                updateStatistics(startRecords, allEndRecords.getValue());
-            }
-        });
+        // 先用上次保存的快照填好统计值，首页第一帧就是上次的结果；数据库读完后再被新结果替换
+        savedSnapshot = repository.loadStatsSnapshot();
+        if (savedSnapshot != null) {
+            averageCycle.setValue(savedSnapshot.averageCycle);
+            averagePeriod.setValue(savedSnapshot.averagePeriod);
+            regularity.setValue(savedSnapshot.regularity);
+            currentPeriodStatus.setValue(savedSnapshot.statusOn(DateUtils.today()));
+            forecast.setValue(savedSnapshot.forecast);
+            // 快照里有预测而数据库里已没有开始记录时，要把 null 发布出去
+            postedForecast = savedSnapshot.forecast;
+        }
         
-        allEndRecords.observeForever(endRecords -> {
-            if (endRecords != null) {
-                updateStatistics(allStartRecords.getValue(), endRecords);
-            }
-        });
+        // 开始/结束记录一起到达，在后台线程上统计，每次数据变化只发布一次
+        snapshotSource = repository.createSnapshotSource();
+        snapshotSource.start(this::updateStatistics);
+    }
+    
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        snapshotSource.stop();
     }
     
     private void updateStatistics(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
-        if (startRecords == null) {
-            return;
-        }
+        statsAggregator.sync(startRecords, endRecords);
+        this.startRecords.postValue(startRecords);
         
-        int avgCycle = PeriodCalculator.calculateAverageCycle(startRecords);
-        int avgPeriod = PeriodCalculator.calculateAveragePeriod(startRecords, endRecords);
-        int reg = PeriodCalculator.calculateRegularity(startRecords);
+        int cycle = statsAggregator.getAverageCycle();
+        int period = statsAggregator.getAveragePeriod();
+        int regularityValue = statsAggregator.getRegularity();
+        averageCycle.postValue(cycle);
+        averagePeriod.postValue(period);
+        regularity.postValue(regularityValue);
         
-        averageCycle.postValue(avgCycle);
-        averagePeriod.postValue(avgPeriod);
-        regularity.postValue(reg);
+        // 预测按开始记录的版本缓存，开始记录没变时拿到的是同一个对象，不重复发布
+        CyclePredictor.Forecast latest = statsAggregator.getForecast(predictor);
         
-        // 更新当前经期状态
-        PeriodCalculator.CurrentPeriodStatus status = 
-            PeriodCalculator.getCurrentPeriodStatus(startRecords, endRecords, avgCycle);
+        // 更新当前经期状态，下次经期日与上面的预测一致
+        PeriodCalculator.CurrentPeriodStatus status = statsAggregator.getCurrentPeriodStatus(DateUtils.today(), predictor);
         currentPeriodStatus.postValue(status);
+        
+        if (latest != postedForecast) {
+            postedForecast = latest;
+            forecast.postValue(latest);
+        }
+        
+        // 结果有变化才重写快照；这里已经在快照线程上
+        StatsSnapshot snapshot = StatsSnapshot.of(cycle, period, regularityValue, status, latest);
+        if (!snapshot.equals(savedSnapshot)) {
+            savedSnapshot = snapshot;
+            repository.saveStatsSnapshot(snapshot);
+        }
+    }
+    
+    public LiveData<String> getHistoryFilter() {
+        return historyFilter;
+    }
+    
+    public void setHistoryFilter(String filter) {
+        if (!filter.equals(historyFilter.getValue())) {
+            historyFilter.setValue(filter);
+        }
     }
     
-    public LiveData<List<PeriodRecord>> getAllRecords() {
-        return allRecords;
+    /**
+     * 当前筛选下的历史记录，按 (date, id) 倒序分页，只加载可见区域和预取的部分。
+     */
+    public LiveData<PagingData<PeriodRecord>> getFilteredRecords() {
+        return filteredRecords;
     }
     
-    public LiveData<List<PeriodRecord>> getAllStartRecords() {
-        return allStartRecords;
+    private LiveData<PagingData<PeriodRecord>> getFilterResult(String filter) {
+        long fromDate;
+        String key;
+        if ("all".equals(filter)) {
+            fromDate = Long.MIN_VALUE;
+            key = filter;
+        } else {
+            LocalDate today = LocalDate.now();
+            LocalDate from = "month".equals(filter) ? today.withDayOfMonth(1) : today.withDayOfYear(1);
+            fromDate = DateUtils.fromEpochDay((int) from.toEpochDay()).getTime();
+            // 跨月/跨年后起点变了，用起点区分缓存
+            key = filter + "@" + from.toEpochDay();
+        }
+        LiveData<PagingData<PeriodRecord>> result = filterResults.get(key);
+        if (result == null) {
+            Pager<HistoryPagingSource.Key, PeriodRecord> pager = new Pager<>(HISTORY_PAGING,
+                    () -> repository.createHistoryPagingSource(fromDate));
+            result = PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), ViewModelKt.getViewModelScope(this));
+            filterResults.put(key, result);
+        }
+        return result;
     }
     
-    public LiveData<List<PeriodRecord>> getAllEndRecords() {
-        return allEndRecords;
+    /**
+     * 全部开始记录，按 day 倒序；与统计值出自同一次读取。
+     */
+    public LiveData<List<PeriodRecord>> getStartRecords() {
+        return startRecords;
     }
     
     public LiveData<Integer> getAverageCycle() {
@@ -92,6 +176,13 @@ public class PeriodViewModel extends AndroidViewModel {
         return currentPeriodStatus;
     }
     
+    /**
+     * 下次经期预测，没有开始记录时为 null。
+     */
+    public LiveData<CyclePredictor.Forecast> getForecast() {
+        return forecast;
+    }
+    
     public void insert(PeriodRecord record) {
         repository.insert(record);
     }
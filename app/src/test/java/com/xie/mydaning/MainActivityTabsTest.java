@@ -0,0 +1,85 @@
+package com.xie.mydaning;
+
+import android.os.Looper;
+import android.view.View;
+
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.lifecycle.Lifecycle;
+
+import com.xie.mydaning.ui.TabFragment;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityTabsTest {
+
+    private MainActivity activity;
+    private FragmentManager fragmentManager;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(MainActivity.class).setup().get();
+        fragmentManager = activity.getSupportFragmentManager();
+    }
+
+    @Test
+    public void reenteringTabReusesFragmentAndView() {
+        Fragment home = fragmentManager.findFragmentByTag(MainActivity.TAG_HOME);
+        View homeView = home.getView();
+        activity.switchToHistory();
+        Fragment history = fragmentManager.findFragmentByTag(MainActivity.TAG_HISTORY);
+        View historyView = history.getView();
+
+        for (int i = 0; i < 50; i++) {
+            activity.switchToHome();
+            activity.switchToHistory();
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+
+        assertSame(home, fragmentManager.findFragmentByTag(MainActivity.TAG_HOME));
+        assertSame(homeView, home.getView());
+        assertSame(history, fragmentManager.findFragmentByTag(MainActivity.TAG_HISTORY));
+        assertSame(historyView, history.getView());
+    }
+
+    @Test
+    public void hiddenTabPausesObserversAndVisibleTabIsResumed() {
+        activity.switchToHistory();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        TabFragment home = (TabFragment) fragmentManager.findFragmentByTag(MainActivity.TAG_HOME);
+        TabFragment history = (TabFragment) fragmentManager.findFragmentByTag(MainActivity.TAG_HISTORY);
+
+        assertTrue(home.isHidden());
+        assertEquals(Lifecycle.State.STARTED, home.getLifecycle().getCurrentState());
+        assertEquals(Lifecycle.State.CREATED, home.getTabLifecycleOwner().getLifecycle().getCurrentState());
+
+        assertFalse(history.isHidden());
+        assertEquals(Lifecycle.State.RESUMED, history.getLifecycle().getCurrentState());
+        assertEquals(Lifecycle.State.RESUMED, history.getTabLifecycleOwner().getLifecycle().getCurrentState());
+
+        activity.switchToHome();
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Lifecycle.State.RESUMED, home.getTabLifecycleOwner().getLifecycle().getCurrentState());
+        assertEquals(Lifecycle.State.CREATED, history.getTabLifecycleOwner().getLifecycle().getCurrentState());
+    }
+
+    @Test
+    public void tabsAreAddedOnFirstVisit() {
+        assertNotNull(fragmentManager.findFragmentByTag(MainActivity.TAG_HOME));
+        assertNull(fragmentManager.findFragmentByTag(MainActivity.TAG_SETTINGS));
+
+        activity.switchToRecord();
+
+        assertNotNull(fragmentManager.findFragmentByTag(MainActivity.TAG_RECORD));
+        assertNull(fragmentManager.findFragmentByTag(MainActivity.TAG_SETTINGS));
+    }
+}
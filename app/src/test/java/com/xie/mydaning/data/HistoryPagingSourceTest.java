@@ -0,0 +1,154 @@
+package com.xie.mydaning.data;
+
+import androidx.paging.PagingSource;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 键集分页与整表倒序查询的结果逐条对比。数据里每个时刻有三条记录，覆盖 date 相同、按 id 区分的情况。
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryPagingSourceTest {
+    private static final int ROW_COUNT = 250;
+    private static final int PAGE_SIZE = 40;
+    private static final long ONE_HOUR_MILLIS = 60L * 60L * 1000L;
+
+    private PeriodDatabase database;
+    private List<PeriodRecord> expected;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), PeriodDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryExecutor(Runnable::run)
+                .build();
+        PeriodDao dao = database.periodDao();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            dao.insert(new PeriodRecord(new Date(i / 3 * ONE_HOUR_MILLIS), "none", "normal", 0, null));
+        }
+
+        expected = new ArrayList<>(dao.loadHistoryPage(Long.MIN_VALUE, Integer.MAX_VALUE));
+        expected.sort(Comparator.<PeriodRecord>comparingLong(r -> r.date.getTime()).thenComparingLong(r -> r.id).reversed());
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void appendingPagesWalksWholeHistoryOnce() throws Exception {
+        HistoryPagingSource source = new HistoryPagingSource(database, Long.MIN_VALUE);
+        PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> page =
+                load(source, new PagingSource.LoadParams.Refresh<>(null, PAGE_SIZE, false));
+        assertNull(page.getPrevKey());
+
+        List<PeriodRecord> all = new ArrayList<>(page.getData());
+        while (page.getNextKey() != null) {
+            page = load(source, new PagingSource.LoadParams.Append<>(page.getNextKey(), PAGE_SIZE, false));
+            all.addAll(page.getData());
+        }
+
+        assertIds(expected, all);
+    }
+
+    @Test
+    public void refreshFromKeyStartsAtThatRecordAndPrependsNewerOnes() throws Exception {
+        HistoryPagingSource source = new HistoryPagingSource(database, Long.MIN_VALUE);
+        PeriodRecord anchor = expected.get(100);
+
+        PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> page =
+                load(source, new PagingSource.LoadParams.Refresh<>(HistoryPagingSource.Key.of(anchor), PAGE_SIZE, false));
+        assertIds(expected.subList(100, 100 + PAGE_SIZE), page.getData());
+        assertNotNull(page.getPrevKey());
+
+        PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> newer =
+                load(source, new PagingSource.LoadParams.Prepend<>(page.getPrevKey(), PAGE_SIZE, false));
+        assertIds(expected.subList(100 - PAGE_SIZE, 100), newer.getData());
+    }
+
+    @Test
+    public void emptyRefreshFromKeyStillReachesNewerRecords() throws Exception {
+        // 锚点及更早的记录都被删掉后，失效刷新按原来的键读到空页
+        PeriodRecord anchor = expected.get(200);
+        for (PeriodRecord record : expected.subList(200, expected.size())) {
+            database.periodDao().delete(record);
+        }
+        HistoryPagingSource source = new HistoryPagingSource(database, Long.MIN_VALUE);
+        HistoryPagingSource.Key key = HistoryPagingSource.Key.of(anchor);
+
+        PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> page =
+                load(source, new PagingSource.LoadParams.Refresh<>(key, PAGE_SIZE, false));
+        assertTrue(page.getData().isEmpty());
+        assertSame(key, page.getPrevKey());
+        assertNull(page.getNextKey());
+
+        PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> newer =
+                load(source, new PagingSource.LoadParams.Prepend<>(page.getPrevKey(), PAGE_SIZE, false));
+        assertIds(expected.subList(200 - PAGE_SIZE, 200), newer.getData());
+    }
+
+    @Test
+    public void prependStopsAtTopOfList() throws Exception {
+        HistoryPagingSource source = new HistoryPagingSource(database, Long.MIN_VALUE);
+
+        PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> page =
+                load(source, new PagingSource.LoadParams.Prepend<>(HistoryPagingSource.Key.of(expected.get(10)), PAGE_SIZE, false));
+
+        assertIds(expected.subList(0, 10), page.getData());
+        assertNull(page.getPrevKey());
+    }
+
+    @Test
+    public void fromDateExcludesOlderRecords() throws Exception {
+        long fromDate = 50 * ONE_HOUR_MILLIS;
+        HistoryPagingSource source = new HistoryPagingSource(database, fromDate);
+
+        List<PeriodRecord> all = new ArrayList<>();
+        HistoryPagingSource.Key key = null;
+        do {
+            PagingSource.LoadParams<HistoryPagingSource.Key> params = key == null
+                    ? new PagingSource.LoadParams.Refresh<>(null, PAGE_SIZE, false)
+                    : new PagingSource.LoadParams.Append<>(key, PAGE_SIZE, false);
+            PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> page = load(source, params);
+            all.addAll(page.getData());
+            key = page.getNextKey();
+        } while (key != null);
+
+        List<PeriodRecord> recent = new ArrayList<>();
+        for (PeriodRecord record : expected) {
+            if (record.date.getTime() >= fromDate) {
+                recent.add(record);
+            }
+        }
+        assertIds(recent, all);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord> load(
+            HistoryPagingSource source, PagingSource.LoadParams<HistoryPagingSource.Key> params) throws Exception {
+        PagingSource.LoadResult<HistoryPagingSource.Key, PeriodRecord> result = source.loadFuture(params).get();
+        assertTrue(String.valueOf(result), result instanceof PagingSource.LoadResult.Page);
+        return (PagingSource.LoadResult.Page<HistoryPagingSource.Key, PeriodRecord>) result;
+    }
+
+    private static void assertIds(List<PeriodRecord> expected, List<PeriodRecord> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("第 " + i + " 条", expected.get(i).id, actual.get(i).id);
+        }
+    }
+}
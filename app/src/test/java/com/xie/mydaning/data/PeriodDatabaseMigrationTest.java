@@ -0,0 +1,168 @@
+package com.xie.mydaning.data;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.xie.mydaning.utils.DateUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用导出的 schema（app/schemas）建出各个旧版本的库，逐个迁移并按下一版本的 schema 校验，
+ * 最后用 Room 打开，确认与当前实体一致。
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PeriodDatabaseMigrationTest {
+    private static final String TEST_DB = "migration-test";
+    private static final long LATEST_START_MILLIS = 1_710_054_000_000L;
+    private static final Migration[] ALL_MIGRATIONS = {
+            PeriodDatabase.MIGRATION_1_2, PeriodDatabase.MIGRATION_2_3, PeriodDatabase.MIGRATION_3_4,
+            PeriodDatabase.MIGRATION_4_5, PeriodDatabase.MIGRATION_5_6};
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), PeriodDatabase.class);
+
+    @Test
+    public void migrate1To2_addsIndices() throws Exception {
+        insertVersion1Rows(helper.createDatabase(TEST_DB, 1));
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 2, true, PeriodDatabase.MIGRATION_1_2);
+
+        Set<String> indices = indexNames(db, "period_records");
+        assertTrue(indices.contains("index_period_records_type_date"));
+        assertTrue(indices.contains("index_period_records_date"));
+        db.close();
+    }
+
+    @Test
+    public void migrate2To3_backfillsDayAndSwapsIndices() throws Exception {
+        insertVersion1Rows(helper.createDatabase(TEST_DB, 2));
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 3, true, PeriodDatabase.MIGRATION_2_3);
+
+        try (Cursor cursor = db.query("SELECT `day` FROM period_records WHERE `date` = " + LATEST_START_MILLIS)) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(DateUtils.toEpochDay(LATEST_START_MILLIS), cursor.getInt(0));
+        }
+        Set<String> indices = indexNames(db, "period_records");
+        assertFalse(indices.contains("index_period_records_type_date"));
+        assertTrue(indices.contains("index_period_records_type_day"));
+        assertTrue(indices.contains("index_period_records_day_date"));
+        db.close();
+    }
+
+    @Test
+    public void migrate3To4_createsReminderQueue() throws Exception {
+        helper.createDatabase(TEST_DB, 3).close();
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 4, true, PeriodDatabase.MIGRATION_3_4);
+
+        assertTrue(indexNames(db, "pending_reminders").contains("index_pending_reminders_dueAt"));
+        db.close();
+    }
+
+    @Test
+    public void migrate4To5_existingRemindersBecomeAlarmClock() throws Exception {
+        SupportSQLiteDatabase v4 = helper.createDatabase(TEST_DB, 4);
+        v4.execSQL("INSERT INTO pending_reminders (kind, dueAt, payload) VALUES ('period', 5000, 19800)");
+        v4.close();
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 5, true, PeriodDatabase.MIGRATION_4_5);
+
+        try (Cursor cursor = db.query("SELECT windowMillis FROM pending_reminders WHERE kind = 'period'")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(PendingReminder.ALARM_CLOCK, cursor.getLong(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate5To6_fillsMissingDatesAndMakesDateNotNull() throws Exception {
+        SupportSQLiteDatabase v5 = helper.createDatabase(TEST_DB, 5);
+        v5.execSQL("INSERT INTO period_records (id, date, day, type, flow, pain, notes) VALUES (1, NULL, 0, 'start', 'normal', 0, 'v1')");
+        v5.execSQL("INSERT INTO period_records (id, date, day, type, flow, pain, notes) VALUES (2, "
+                + LATEST_START_MILLIS + ", " + DateUtils.toEpochDay(LATEST_START_MILLIS) + ", 'start', 'heavy', 2, NULL)");
+        v5.execSQL("INSERT INTO period_records (id, date, day, type, flow, pain, notes) VALUES (5, 0, 0, 'none', 'normal', 0, NULL)");
+        v5.execSQL("DELETE FROM period_records WHERE id = 5");
+        v5.close();
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 6, true, PeriodDatabase.MIGRATION_5_6);
+
+        try (Cursor cursor = db.query("SELECT id, date, notes FROM period_records ORDER BY id")) {
+            assertTrue(cursor.moveToNext());
+            assertEquals(DateUtils.fromEpochDay(0).getTime(), cursor.getLong(1));
+            assertEquals("v1", cursor.getString(2));
+            assertTrue(cursor.moveToNext());
+            assertEquals(LATEST_START_MILLIS, cursor.getLong(1));
+        }
+        Set<String> indices = indexNames(db, "period_records");
+        assertFalse(indices.contains("index_period_records_day_date"));
+        assertTrue(indices.contains("index_period_records_type_day"));
+        assertTrue(indices.contains("index_period_records_date"));
+        // 自增序列随重建保留，已删除记录的 id 不会被复用
+        db.execSQL("INSERT INTO period_records (date, day, type, flow, pain, notes) VALUES (0, 0, 'none', 'normal', 0, NULL)");
+        try (Cursor cursor = db.query("SELECT MAX(id) FROM period_records")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(6, cursor.getLong(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate1To6_keepsRowsAndMatchesCurrentEntities() throws Exception {
+        insertVersion1Rows(helper.createDatabase(TEST_DB, 1));
+        SupportSQLiteDatabase migrated = helper.runMigrationsAndValidate(TEST_DB, 6, true, ALL_MIGRATIONS);
+        // 去掉 schema 文件写入的 identityHash，让 Room 打开时逐表按编译出的实体校验，
+        // 而不是只比对哈希；schema 文件与实体不一致会在这里失败
+        migrated.execSQL("DROP TABLE room_master_table");
+        migrated.close();
+
+        PeriodDatabase database = Room.databaseBuilder(ApplicationProvider.getApplicationContext(), PeriodDatabase.class, TEST_DB)
+                .addMigrations(ALL_MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+        helper.closeWhenFinished(database);
+
+        PeriodRecord latestStart = database.periodDao().getLatestStartRecord();
+        assertNotNull(latestStart);
+        assertEquals(LATEST_START_MILLIS, latestStart.date.getTime());
+        assertEquals(DateUtils.toEpochDay(LATEST_START_MILLIS), latestStart.day);
+        assertEquals(2, database.periodDao().loadStartRecords().size());
+
+        database.reminderDao().upsert(new PendingReminder("water", 5_000L, 60_000L, 0));
+        assertEquals(60_000L, database.reminderDao().get("water").windowMillis);
+    }
+
+    private static void insertVersion1Rows(SupportSQLiteDatabase db) {
+        db.execSQL("INSERT INTO period_records (date, type, flow, pain, notes) VALUES (1000, 'start', 'normal', 1, NULL)");
+        db.execSQL("INSERT INTO period_records (date, type, flow, pain, notes) VALUES (2000, 'end', 'light', 0, 'ok')");
+        db.execSQL("INSERT INTO period_records (date, type, flow, pain, notes) VALUES (" + LATEST_START_MILLIS + ", 'start', 'heavy', 2, NULL)");
+        db.close();
+    }
+
+    private static Set<String> indexNames(SupportSQLiteDatabase db, String table) {
+        Set<String> indices = new HashSet<>();
+        try (Cursor cursor = db.query("PRAGMA index_list(`" + table + "`)")) {
+            int nameColumn = cursor.getColumnIndexOrThrow("name");
+            while (cursor.moveToNext()) {
+                indices.add(cursor.getString(nameColumn));
+            }
+        }
+        return indices;
+    }
+}
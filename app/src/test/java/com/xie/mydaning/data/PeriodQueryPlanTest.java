@@ -0,0 +1,178 @@
+package com.xie.mydaning.data;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对 10 万行的表执行 EXPLAIN QUERY PLAN，确认 PeriodDao 的每个查询都走索引且不产生临时 B 树排序。
+ * 被检查的 SQL 和参数由 Room 的查询回调截获，就是 DAO 实际执行的语句。
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PeriodQueryPlanTest {
+    private static final int ROW_COUNT = 100_000;
+    private static final long ONE_DAY_MILLIS = 24L * 60L * 60L * 1000L;
+
+    private PeriodDatabase database;
+    private PeriodDao dao;
+    private SupportSQLiteDatabase db;
+    private final List<Statement> captured = new ArrayList<>();
+    private boolean capturing;
+
+    /** DAO 执行的一条语句及其绑定参数。 */
+    private static final class Statement {
+        final String sql;
+        final Object[] args;
+
+        Statement(String sql, List<Object> args) {
+            this.sql = sql;
+            this.args = args.toArray();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), PeriodDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryExecutor(Runnable::run)
+                .setQueryCallback((sql, args) -> {
+                    if (capturing) {
+                        captured.add(new Statement(sql, args));
+                    }
+                }, Runnable::run)
+                .build();
+        dao = database.periodDao();
+        db = database.getOpenHelper().getWritableDatabase();
+
+        String[] types = {"start", "none", "none", "none", "end", "none", "none"};
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                db.execSQL("INSERT INTO period_records (date, day, type, flow, pain, notes) VALUES (?, ?, ?, 'normal', 0, NULL)",
+                        new Object[]{i * ONE_DAY_MILLIS / 4, i / 4, types[i % types.length]});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.execSQL("ANALYZE");
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void loadHistoryPage_usesDateIndex() {
+        assertIndexedWithoutSort(capture(() -> dao.loadHistoryPage(Long.MIN_VALUE, 50)));
+    }
+
+    @Test
+    public void loadHistoryAtOrBefore_seeksDateIndex() {
+        assertKeysetSeek(capture(() -> dao.loadHistoryAtOrBefore(Long.MIN_VALUE, middleDate(), ROW_COUNT / 2, 50)));
+    }
+
+    @Test
+    public void loadHistoryBefore_seeksDateIndex() {
+        assertKeysetSeek(capture(() -> dao.loadHistoryBefore(Long.MIN_VALUE, middleDate(), ROW_COUNT / 2, 50)));
+    }
+
+    @Test
+    public void loadHistoryAfter_seeksDateIndex() {
+        assertKeysetSeek(capture(() -> dao.loadHistoryAfter(Long.MIN_VALUE, middleDate(), ROW_COUNT / 2, 50)));
+    }
+
+    @Test
+    public void loadStartRecords_usesTypeDayIndex() {
+        assertIndexedWithoutSort(capture(dao::loadStartRecords));
+    }
+
+    @Test
+    public void loadEndRecords_usesTypeDayIndex() {
+        assertIndexedWithoutSort(capture(dao::loadEndRecords));
+    }
+
+    @Test
+    public void loadStartDays_isCoveredByTypeDayIndex() {
+        Statement statement = capture(dao::loadStartDays);
+        assertIndexedWithoutSort(statement);
+        String joined = String.join("\n", explain(statement));
+        assertTrue("只读 day 列应由索引覆盖：\n" + joined, joined.contains("USING COVERING INDEX"));
+    }
+
+    @Test
+    public void getLatestStartRecord_usesTypeDayIndex() {
+        assertIndexedWithoutSort(capture(dao::getLatestStartRecord));
+    }
+
+    @Test
+    public void getLatestEndRecord_usesTypeDayIndex() {
+        assertIndexedWithoutSort(capture(dao::getLatestEndRecord));
+    }
+
+    private static long middleDate() {
+        return ROW_COUNT / 2 * ONE_DAY_MILLIS / 4;
+    }
+
+    /**
+     * 执行一次 DAO 调用，返回其中唯一一条读 period_records 的查询。
+     */
+    private Statement capture(Runnable daoCall) {
+        captured.clear();
+        capturing = true;
+        try {
+            daoCall.run();
+        } finally {
+            capturing = false;
+        }
+        List<Statement> queries = new ArrayList<>();
+        for (Statement statement : captured) {
+            if (statement.sql.trim().toUpperCase().startsWith("SELECT") && statement.sql.contains("period_records")) {
+                queries.add(statement);
+            }
+        }
+        assertEquals("应恰好执行一条查询", 1, queries.size());
+        return queries.get(0);
+    }
+
+    /** 键集分页必须按 date 区间在索引上定位，而不是从头扫到边界。 */
+    private void assertKeysetSeek(Statement statement) {
+        assertIndexedWithoutSort(statement);
+        String joined = String.join("\n", explain(statement));
+        assertTrue("计划应按 date 区间查找：\n" + joined, joined.contains("(date>? AND date<?)") || joined.contains("(date>?)"));
+    }
+
+    private void assertIndexedWithoutSort(Statement statement) {
+        String joined = String.join("\n", explain(statement));
+        assertFalse("计划中不应有全表扫描：\n" + joined, joined.matches("(?s).*SCAN (TABLE )?period_records(?! USING).*"));
+        assertTrue("计划应使用索引：\n" + joined, joined.contains("USING INDEX") || joined.contains("USING COVERING INDEX"));
+        assertFalse("计划中不应有临时 B 树排序：\n" + joined, joined.contains("TEMP B-TREE"));
+    }
+
+    private List<String> explain(Statement statement) {
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = db.query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + statement.sql, statement.args))) {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailColumn));
+            }
+        }
+        assertFalse(details.isEmpty());
+        return details;
+    }
+}
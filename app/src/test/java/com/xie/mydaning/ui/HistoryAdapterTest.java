@@ -0,0 +1,177 @@
+package com.xie.mydaning.ui;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.xie.mydaning.R;
+import com.xie.mydaning.data.PeriodRecord;
+import com.xie.mydaning.utils.DateUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class HistoryAdapterTest {
+
+    @Test
+    public void editingOneRecordChangesExactlyOneRow() {
+        List<PeriodRecord> before = history(50);
+        List<PeriodRecord> after = copyOf(before);
+        after.get(17).notes = "头疼";
+
+        CountingCallback callback = diff(before, after);
+
+        assertEquals(1, callback.changed);
+        assertEquals(17, callback.lastChangedPosition);
+        assertEquals(0, callback.inserted + callback.removed + callback.moved);
+    }
+
+    @Test
+    public void insertingRecordDoesNotRebindOthers() {
+        List<PeriodRecord> before = history(50);
+        List<PeriodRecord> after = copyOf(before);
+        PeriodRecord added = record(1_000, DateUtils.today() + 1);
+        after.add(0, added);
+
+        CountingCallback callback = diff(before, after);
+
+        assertEquals(1, callback.inserted);
+        assertEquals(0, callback.changed + callback.removed + callback.moved);
+    }
+
+    @Test
+    public void thousandBindsReuseTheSameViews() {
+        Context context = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.Theme_MyDaning);
+        HistoryAdapter adapter = new HistoryAdapter();
+        HistoryAdapter.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(context), 0);
+        View flowTag = holder.itemView.findViewById(R.id.tv_flow_tag);
+        View painTag = holder.itemView.findViewById(R.id.tv_pain_tag);
+
+        String[] flows = {"light", "normal", "heavy", null};
+        holder.bind(record(0, DateUtils.today()), null);
+        List<View> views = collectViews(holder.itemView, new ArrayList<>());
+        Drawable painBackground = painTag.getBackground();
+
+        for (int i = 1; i <= 1_000; i++) {
+            PeriodRecord record = record(i, DateUtils.today() - i);
+            record.flow = flows[i % flows.length];
+            record.pain = i % 4;
+            record.notes = i % 3 == 0 ? "备注" + i : null;
+            holder.bind(record, null);
+        }
+
+        // 绑定 1000 次后视图树里还是同一批 View，标签背景也没有换新对象
+        List<View> after = collectViews(holder.itemView, new ArrayList<>());
+        assertEquals(views.size(), after.size());
+        for (int i = 0; i < views.size(); i++) {
+            assertSame(views.get(i), after.get(i));
+        }
+        assertSame(flowTag, holder.itemView.findViewById(R.id.tv_flow_tag));
+        assertSame(painBackground, painTag.getBackground());
+    }
+
+    private static List<View> collectViews(View view, List<View> out) {
+        out.add(view);
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectViews(group.getChildAt(i), out);
+            }
+        }
+        return out;
+    }
+
+    private static CountingCallback diff(List<PeriodRecord> before, List<PeriodRecord> after) {
+        CountingCallback callback = new CountingCallback();
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return before.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return after.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return HistoryAdapter.DIFF_CALLBACK.areItemsTheSame(before.get(oldPosition), after.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return HistoryAdapter.DIFF_CALLBACK.areContentsTheSame(before.get(oldPosition), after.get(newPosition));
+            }
+        }).dispatchUpdatesTo(callback);
+        return callback;
+    }
+
+    private static List<PeriodRecord> history(int size) {
+        List<PeriodRecord> records = new ArrayList<>();
+        int today = DateUtils.today();
+        for (int i = 0; i < size; i++) {
+            records.add(record(i + 1, today - i));
+        }
+        return records;
+    }
+
+    /** 模拟 Room 每次返回新对象。 */
+    private static List<PeriodRecord> copyOf(List<PeriodRecord> records) {
+        List<PeriodRecord> copy = new ArrayList<>();
+        for (PeriodRecord record : records) {
+            copy.add(new PeriodRecord(record));
+        }
+        return copy;
+    }
+
+    private static PeriodRecord record(long id, int day) {
+        PeriodRecord record = new PeriodRecord(DateUtils.fromEpochDay(day), "none", "normal", 0, null);
+        record.id = id;
+        return record;
+    }
+
+    private static class CountingCallback implements ListUpdateCallback {
+        int inserted;
+        int removed;
+        int moved;
+        int changed;
+        int lastChangedPosition = -1;
+
+        @Override
+        public void onInserted(int position, int count) {
+            inserted += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            removed += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            moved++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            changed += count;
+            lastChangedPosition = position;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.xie.mydaning.utils;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.xie.mydaning.data.AlarmDriftLog;
+import com.xie.mydaning.data.PendingReminder;
+import com.xie.mydaning.data.PeriodDatabase;
+import com.xie.mydaning.data.PeriodRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 不管队列里有多少条提醒，AlarmManager 上最多挂一个准时闹钟和一个窗口闹钟，各指向最早的一条。
+ * 另外覆盖经期提醒的安排规则：开机恢复和首页安排用的是同一条。
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ReminderEngineTest {
+    private static final long NOW = 1_710_000_000_000L;
+    private static final long ONE_HOUR_MILLIS = 60L * 60L * 1000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+    private PeriodDatabase database;
+    private ReminderEngine engine;
+    private ShadowAlarmManager alarms;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        ShadowAlarmManager.setCanScheduleExactAlarms(true);
+        database = Room.inMemoryDatabaseBuilder(context, PeriodDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        engine = new ReminderEngine(database.reminderDao(), new SystemAlarmBackend(context));
+        alarms = shadowOf((AlarmManager) context.getSystemService(Context.ALARM_SERVICE));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void singleAlarmAlwaysTracksEarliestReminder() {
+        engine.schedule(ReminderEngine.KIND_WATER, NOW + 10_000, 0);
+        engine.schedule(ReminderEngine.KIND_PERIOD, NOW + 5_000, 20_000);
+        for (int i = 0; i < 20; i++) {
+            engine.schedule("kind" + i, NOW + 60_000 + i, 0);
+        }
+
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(NOW + 5_000, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+
+        engine.cancel(ReminderEngine.KIND_PERIOD);
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(NOW + 10_000, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+
+        engine.cancel(ReminderEngine.KIND_WATER);
+        for (int i = 0; i < 20; i++) {
+            engine.cancel("kind" + i);
+        }
+        assertTrue(alarms.getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void reschedulingSameKindReplacesIt() {
+        engine.schedule(ReminderEngine.KIND_WATER, NOW + 5_000, 0);
+        engine.schedule(ReminderEngine.KIND_WATER, NOW + 90_000, 0);
+
+        assertEquals(NOW + 90_000, engine.getPending(ReminderEngine.KIND_WATER).dueAt);
+        assertEquals(NOW + 90_000, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+    }
+
+    @Test
+    public void dispatchFiresEveryDueReminderInOneBatch() {
+        engine.schedule("a", NOW - 1_000, 1);
+        engine.schedule("b", NOW, 2);
+        engine.schedule("c", NOW + 1_000, 3);
+
+        List<String> fired = new ArrayList<>();
+        int count = engine.dispatchDue(NOW, (queue, reminder) -> {
+            fired.add(reminder.kind);
+            if (reminder.kind.equals("a")) {
+                // 处理中安排下一次，整批结束后才重挂闹钟
+                queue.schedule("a", NOW + 500, 1);
+            }
+        });
+
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("a", "b"), fired);
+        assertNull(engine.getPending("b"));
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(NOW + 500, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+    }
+
+    @Test
+    public void reminderStaysQueuedUntilHandlerReturns() {
+        engine.schedule("a", NOW - 1_000, 1);
+        engine.schedule("b", NOW, 2);
+
+        List<String> stillQueued = new ArrayList<>();
+        engine.dispatchDue(NOW, (queue, reminder) -> {
+            // 处理中进程被杀的话，这一条下次唤醒还会再来
+            if (queue.getPending(reminder.kind) != null) {
+                stillQueued.add(reminder.kind);
+            }
+        });
+
+        assertEquals(Arrays.asList("a", "b"), stillQueued);
+        assertNull(engine.getPending("a"));
+        assertNull(engine.getPending("b"));
+        assertTrue(alarms.getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void failingHandlerDoesNotDropRestOfBatch() {
+        engine.schedule("a", NOW - 2, 0);
+        engine.schedule("b", NOW - 1, 0);
+
+        List<String> fired = new ArrayList<>();
+        engine.dispatchDue(NOW, (queue, reminder) -> {
+            fired.add(reminder.kind);
+            throw new IllegalStateException("boom");
+        });
+
+        assertEquals(Arrays.asList("a", "b"), fired);
+        assertTrue(alarms.getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void rearmRestoresAlarmFromQueueAfterReboot() {
+        engine.schedule(ReminderEngine.KIND_PERIOD, NOW + 5_000, 20_000);
+        engine.schedule(ReminderEngine.KIND_WATER, NOW + 8_000, 0);
+        // 重启后系统里的闹钟全部丢失，队列还在
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.cancel(SystemAlarmBackend.dispatchIntent(context, SystemAlarmBackend.REQUEST_CODE));
+        assertTrue(alarms.getScheduledAlarms().isEmpty());
+
+        new ReminderEngine(database.reminderDao(), new SystemAlarmBackend(context)).rearm();
+
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(NOW + 5_000, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+    }
+
+    @Test
+    public void scheduledAndFiredRemindersAreLoggedWithDrift() {
+        AlarmDriftLog log = new AlarmDriftLog(new File(folder.getRoot(), "drift"), 64);
+        ReminderEngine logged = new ReminderEngine(database.reminderDao(), new SystemAlarmBackend(context), log);
+        logged.schedule(ReminderEngine.KIND_WATER, NOW, 0);
+        logged.schedule(ReminderEngine.KIND_PERIOD, NOW + 1_000, 20_000);
+
+        // 晚到 90 秒处理
+        logged.dispatchDue(NOW + 90_000, (queue, reminder) -> { });
+
+        List<AlarmDriftLog.Entry> entries = log.entries();
+        assertEquals(4, entries.size());
+        assertEquals(AlarmDriftLog.EVENT_SCHEDULED, entries.get(0).event);
+        assertEquals(AlarmDriftLog.EVENT_FIRED, entries.get(2).event);
+        assertEquals(90_000, log.driftStats(ReminderEngine.KIND_WATER).max);
+        assertEquals(89_000, log.driftStats(ReminderEngine.KIND_PERIOD).p50);
+    }
+
+    @Test
+    public void bootRestoreSchedulesPeriodReminderAheadOfForecast() {
+        int earliest = seedStartDays();
+        long target = ReminderScheduler.periodReminderTarget(earliest);
+
+        ReminderScheduler.restorePeriodReminder(database.periodDao(), engine, target - 24 * ONE_HOUR_MILLIS);
+
+        PendingReminder pending = engine.getPending(ReminderEngine.KIND_PERIOD);
+        assertEquals(target, pending.dueAt);
+        assertEquals(earliest, pending.payload);
+        assertEquals(target, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+    }
+
+    @Test
+    public void bootRestoreStillDeliversReminderMissedWhilePoweredOff() {
+        int earliest = seedStartDays();
+        long target = ReminderScheduler.periodReminderTarget(earliest);
+        // 关机前按旧的预测排好的提醒，关机期间到期
+        long missedAt = target - 2 * ONE_HOUR_MILLIS;
+        engine.schedule(ReminderEngine.KIND_PERIOD, missedAt, earliest - 1);
+
+        ReminderScheduler.restorePeriodReminder(database.periodDao(), engine, target + ONE_HOUR_MILLIS);
+
+        PendingReminder pending = engine.getPending(ReminderEngine.KIND_PERIOD);
+        assertEquals(missedAt, pending.dueAt);
+        assertEquals(earliest, pending.payload);
+        assertEquals(missedAt, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+    }
+
+    @Test
+    public void bootRestoreDoesNotRepeatReminderAlreadyDelivered() {
+        int earliest = seedStartDays();
+        long target = ReminderScheduler.periodReminderTarget(earliest);
+
+        ReminderScheduler.restorePeriodReminder(database.periodDao(), engine, target + ONE_HOUR_MILLIS);
+
+        assertNull(engine.getPending(ReminderEngine.KIND_PERIOD));
+        assertTrue(alarms.getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void foregroundScheduleNeverRefiresPastReminder() {
+        int periodDay = DateUtils.toEpochDay(NOW) + 3;
+        long target = ReminderScheduler.periodReminderTarget(periodDay);
+        assertTrue(target < NOW);
+
+        // 提前一周的时刻已过、提醒已送达：每次打开首页或编辑记录都不再安排
+        ReminderScheduler.schedulePeriodReminder(engine, periodDay, NOW);
+        ReminderScheduler.schedulePeriodReminder(engine, periodDay, NOW + 5_000);
+
+        assertNull(engine.getPending(ReminderEngine.KIND_PERIOD));
+        assertTrue(alarms.getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void foregroundScheduleKeepsPendingReminderTime() {
+        int periodDay = DateUtils.toEpochDay(NOW) + 3;
+        long dueAt = NOW + 60_000;
+        engine.schedule(ReminderEngine.KIND_PERIOD, dueAt, periodDay - 1);
+
+        ReminderScheduler.schedulePeriodReminder(engine, periodDay, NOW);
+
+        PendingReminder pending = engine.getPending(ReminderEngine.KIND_PERIOD);
+        assertEquals(dueAt, pending.dueAt);
+        assertEquals(periodDay, pending.payload);
+
+        // 预测推后到一周以外，按新的提前一周时刻安排
+        int laterDay = periodDay + 14;
+        ReminderScheduler.schedulePeriodReminder(engine, laterDay, NOW);
+        assertEquals(ReminderScheduler.periodReminderTarget(laterDay), engine.getPending(ReminderEngine.KIND_PERIOD).dueAt);
+    }
+
+    /**
+     * 写入四次相隔 28 天的开始记录，返回开机恢复时应得到的预测最早开始日。
+     */
+    private int seedStartDays() {
+        int first = DateUtils.toEpochDay(NOW) - 90;
+        int[] days = {first, first + 28, first + 56, first + 84};
+        for (int day : days) {
+            database.periodDao().insert(new PeriodRecord(DateUtils.fromEpochDay(day), "start", "normal", 0, null));
+        }
+        return PeriodCalculator.forecast(days, days.length, new WeightedRecentPredictor()).earliestDay;
+    }
+}
@@ -0,0 +1,205 @@
+package com.xie.mydaning.utils;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.xie.mydaning.data.PeriodDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用假的 AlarmBackend 模拟一整天，统计精确模式和窗口模式下喝水提醒各唤醒设备几次。
+ * 假实现把窗口闹钟放到窗口末尾送达，相当于系统为了合并唤醒尽量往后拖。
+ * 另外检查可推迟的喝水提醒不会拖住排在后面的经期闹钟。
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WaterReminderWakeupTest {
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final long DAY_START = LocalDate.of(2024, 3, 12).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    private static final long DAY_END = DAY_START + 24L * 60L * WaterReminderPlan.MINUTE_MILLIS;
+    private static final int QUIET_START = 22 * 60;
+    private static final int QUIET_END = 8 * 60;
+
+    private PeriodDatabase database;
+    private FakeAlarmBackend alarms;
+    private ReminderEngine engine;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), PeriodDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        alarms = new FakeAlarmBackend();
+        engine = new ReminderEngine(database.reminderDao(), alarms);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void exactModeWakesEveryInterval() {
+        WaterReminderPlan plan = new WaterReminderPlan(DAY_START, 1, 0, 0, 0);
+
+        List<Long> fired = simulateDay(plan);
+
+        assertEquals(1439, fired.size());
+        // 最后一次重挂落在第二天 0 点
+        assertEquals(1440, alarms.exactCount);
+        assertEquals(0, alarms.alarmClockCount);
+    }
+
+    @Test
+    public void windowedModeKeepsIntervalAndSkipsQuietHours() {
+        WaterReminderPlan plan = new WaterReminderPlan(DAY_START, 1, 15, QUIET_START, QUIET_END);
+
+        List<Long> fired = simulateDay(plan);
+
+        // 容差被限制在间隔的一半（30 秒），每次在窗口末尾送达也不会错过下一格：
+        // 8:00 到 21:59 每分钟一次，22:00 以后不再安排
+        assertEquals(14 * 60, fired.size());
+        assertEquals(0, alarms.alarmClockCount);
+        assertEquals(0, alarms.exactCount);
+        assertEquals(DAY_START + QUIET_END * WaterReminderPlan.MINUTE_MILLIS + 30_000L, (long) fired.get(0));
+        for (int i = 1; i < fired.size(); i++) {
+            assertEquals(WaterReminderPlan.MINUTE_MILLIS, fired.get(i) - fired.get(i - 1));
+        }
+    }
+
+    @Test
+    public void halfHourIntervalInEachMode() {
+        assertEquals(47, simulateDay(new WaterReminderPlan(DAY_START, 30, 0, 0, 0)).size());
+
+        // 网格锚定后窗口里的推迟不再累积，8:00 到 21:30 每半小时一格
+        engine.cancel(ReminderEngine.KIND_WATER);
+        assertEquals(28, simulateDay(new WaterReminderPlan(DAY_START, 30, 15, QUIET_START, QUIET_END)).size());
+    }
+
+    @Test
+    public void windowedReminderRidesAlongWithPeriodAlarm() {
+        long tenAm = DAY_START + 10 * 60 * WaterReminderPlan.MINUTE_MILLIS;
+        engine.schedule(ReminderEngine.KIND_WATER, tenAm, 15 * WaterReminderPlan.MINUTE_MILLIS, 0);
+        engine.schedule(ReminderEngine.KIND_PERIOD, tenAm + 5 * WaterReminderPlan.MINUTE_MILLIS, 20_000);
+
+        assertEquals(FakeAlarmBackend.ALARM_CLOCK, alarms.strictType);
+        assertFalse(alarms.windowArmed);
+        List<String> kinds = new ArrayList<>();
+        engine.dispatchDue(alarms.deliveryTime(), (queue, reminder) -> kinds.add(reminder.kind));
+
+        assertEquals(2, kinds.size());
+        assertFalse(alarms.isArmed());
+    }
+
+    @Test
+    public void periodAlarmAfterWaterWindowIsArmedUpFront() {
+        long tenAm = DAY_START + 10 * 60 * WaterReminderPlan.MINUTE_MILLIS;
+        long periodAt = tenAm + 60 * WaterReminderPlan.MINUTE_MILLIS;
+        engine.schedule(ReminderEngine.KIND_WATER, tenAm, 15 * WaterReminderPlan.MINUTE_MILLIS, 0);
+        engine.schedule(ReminderEngine.KIND_PERIOD, periodAt, 20_000);
+
+        // 经期提醒在喝水窗口之后，不等窗口闹钟送达就用闹钟级 API 挂好
+        assertEquals(FakeAlarmBackend.ALARM_CLOCK, alarms.strictType);
+        assertEquals(periodAt, alarms.strictAt);
+        assertTrue(alarms.windowArmed);
+        assertEquals(tenAm, alarms.windowStart);
+
+        List<String> kinds = new ArrayList<>();
+        engine.dispatchDue(alarms.deliveryTime(), (queue, reminder) -> kinds.add(reminder.kind));
+        assertEquals(Collections.singletonList(ReminderEngine.KIND_WATER), kinds);
+        assertEquals(periodAt, alarms.strictAt);
+
+        engine.dispatchDue(alarms.deliveryTime(), (queue, reminder) -> kinds.add(reminder.kind));
+        assertEquals(Arrays.asList(ReminderEngine.KIND_WATER, ReminderEngine.KIND_PERIOD), kinds);
+        assertFalse(alarms.isArmed());
+    }
+
+    /**
+     * 当天 0 点开启提醒，按闹钟送达的时刻依次处理，返回当天每次唤醒的时刻。
+     */
+    private List<Long> simulateDay(WaterReminderPlan plan) {
+        ReminderScheduler.scheduleNextWater(engine, plan, DAY_START, ZONE);
+        List<Long> fired = new ArrayList<>();
+        while (alarms.isArmed() && alarms.deliveryTime() < DAY_END) {
+            long now = alarms.deliveryTime();
+            fired.add(now);
+            engine.dispatchDue(now, (queue, reminder) ->
+                    ReminderScheduler.scheduleNextWater(queue, plan, Math.max(now, reminder.dueAt), ZONE));
+        }
+        return fired;
+    }
+
+    /**
+     * 准时闹钟和窗口闹钟各一个位置；窗口闹钟在窗口末尾送达。
+     */
+    private static class FakeAlarmBackend implements AlarmBackend {
+        static final int NONE = 0;
+        static final int ALARM_CLOCK = 1;
+        static final int EXACT = 2;
+
+        int strictType = NONE;
+        long strictAt;
+        boolean windowArmed;
+        long windowStart;
+        long windowLength;
+        int alarmClockCount;
+        int exactCount;
+
+        @Override
+        public void setAlarmClock(long triggerAt) {
+            strictType = ALARM_CLOCK;
+            strictAt = triggerAt;
+            alarmClockCount++;
+        }
+
+        @Override
+        public void setExact(long triggerAt) {
+            strictType = EXACT;
+            strictAt = triggerAt;
+            exactCount++;
+        }
+
+        @Override
+        public void setWindow(long windowStart, long windowLength) {
+            windowArmed = true;
+            this.windowStart = windowStart;
+            this.windowLength = windowLength;
+        }
+
+        @Override
+        public void cancelStrict() {
+            strictType = NONE;
+        }
+
+        @Override
+        public void cancelWindow() {
+            windowArmed = false;
+        }
+
+        boolean isArmed() {
+            return strictType != NONE || windowArmed;
+        }
+
+        /** 两个闹钟里先送达的那个的时刻。 */
+        long deliveryTime() {
+            long windowEnd = windowStart + windowLength;
+            if (strictType == NONE) {
+                return windowEnd;
+            }
+            return windowArmed ? Math.min(strictAt, windowEnd) : strictAt;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.xie.mydaning.view;
+
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowChoreographer;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class CircularProgressViewTest {
+    private static final Duration FRAME = Duration.ofMillis(16);
+
+    private CircularProgressView view;
+
+    @Before
+    public void setUp() {
+        // 默认每帧都会自己推进时钟，一次 idleFor 就把动画跑完；暂停后由 runFrames 按 16ms 一帧推进
+        ShadowChoreographer.setPaused(true);
+        view = new CircularProgressView(ApplicationProvider.getApplicationContext());
+    }
+
+    @Test
+    public void animationMovesTowardTargetFrameByFrame() {
+        view.animateProgress(80f);
+        assertEquals(0f, view.getProgress(), 0f);
+
+        runFrames(Duration.ofMillis(100));
+        float midway = view.getProgress();
+        assertTrue(midway > 0f && midway < 80f);
+
+        runFrames(Duration.ofSeconds(1));
+        assertEquals(80f, view.getProgress(), 0f);
+    }
+
+    @Test
+    public void retargetingContinuesFromCurrentValue() {
+        view.animateProgress(100f);
+        runFrames(Duration.ofMillis(150));
+        float current = view.getProgress();
+
+        view.animateProgress(20f);
+        runFrames(FRAME);
+        assertTrue(view.getProgress() <= current);
+
+        runFrames(Duration.ofSeconds(1));
+        assertEquals(20f, view.getProgress(), 0f);
+    }
+
+    @Test
+    public void setProgressJumpsAndCancelsAnimation() {
+        view.animateProgress(90f);
+        view.setProgress(30f);
+
+        runFrames(Duration.ofSeconds(1));
+        assertEquals(30f, view.getProgress(), 0f);
+    }
+
+    /**
+     * 按 16ms 一帧推进主线程时钟，每一步最多出一帧。
+     */
+    private static void runFrames(Duration duration) {
+        for (long elapsed = 0; elapsed < duration.toMillis(); elapsed += FRAME.toMillis()) {
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+        }
+    }
+}
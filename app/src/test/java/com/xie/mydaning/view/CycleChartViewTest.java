@@ -0,0 +1,140 @@
+package com.xie.mydaning.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+// 旧的图形模式不支持 Path.incReserve 等调用，绘制走真实的本地实现
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class CycleChartViewTest {
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 200;
+
+    private CycleChartView chart;
+
+    @Before
+    public void setUp() {
+        chart = new CycleChartView(ApplicationProvider.getApplicationContext());
+        chart.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        chart.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void longHistoryStartsScrolledToLatestCycles() {
+        chart.setCycles(lengths(100), 100);
+        float end = chart.getScrollOffset();
+        assertTrue(end > 0f);
+
+        // 停在最新一端时，追加的新周期仍然可见
+        chart.appendCycle(30);
+        assertTrue(chart.getScrollOffset() > end);
+        assertEquals(101, chart.getCycleCount());
+    }
+
+    @Test
+    public void dragScrollIsClampedToContent() {
+        chart.setCycles(lengths(100), 100);
+        float end = chart.getScrollOffset();
+
+        chart.scrollChartBy(-1_000_000f);
+        assertEquals(0f, chart.getScrollOffset(), 0f);
+
+        // 拖离最新一端后，追加数据不会把视图拉回去
+        chart.appendCycle(30);
+        assertEquals(0f, chart.getScrollOffset(), 0f);
+
+        chart.scrollChartBy(1_000_000f);
+        assertTrue(chart.getScrollOffset() > end);
+    }
+
+    @Test
+    public void shortHistoryDoesNotScroll() {
+        chart.setCycles(lengths(3), 3);
+        chart.scrollChartBy(100f);
+
+        assertEquals(0f, chart.getScrollOffset(), 0f);
+    }
+
+    @Test
+    public void drawsEmptyAndScrolledCharts() {
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        chart.draw(canvas);
+
+        chart.setCycles(lengths(1_000), 1_000);
+        chart.setForecast(29);
+        for (int i = 0; i < 100; i++) {
+            chart.scrollChartBy(-37f);
+            chart.draw(canvas);
+        }
+    }
+
+    @Test
+    public void overviewFitsOneScreenWithoutScrolling() {
+        chart.setCycles(lengths(100), 100);
+        int capacity = chart.getOverviewCapacity();
+        float[] x = new float[capacity];
+        float[] y = new float[capacity];
+        for (int i = 0; i < capacity; i++) {
+            x[i] = 20_000 + i * 30.4f;
+            y[i] = 27.5f + i % 3;
+        }
+
+        chart.setOverview(x, y, capacity, 20_000 + capacity * 31);
+        chart.setForecast(29);
+        assertTrue(chart.isOverview());
+        assertEquals(0f, chart.getScrollOffset(), 0f);
+        chart.scrollChartBy(-200f);
+        assertEquals(0f, chart.getScrollOffset(), 0f);
+        chart.draw(new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)));
+
+        // 切回逐个周期后仍停在最新一端
+        chart.setCycles(lengths(100), 100);
+        assertFalse(chart.isOverview());
+        assertTrue(chart.getScrollOffset() > 0f);
+    }
+
+    @Test
+    public void scrolledOnDrawDoesNotAllocate() {
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        chart.setCycles(lengths(1_000), 1_000);
+        chart.setForecast(29);
+        for (int i = 0; i < 50; i++) {
+            chart.scrollChartBy(-37f);
+            chart.onDraw(canvas);
+        }
+
+        // 只统计 onDraw：invalidate 等框架调用在 Robolectric 的影子类里会分配
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = 0;
+        for (int i = 0; i < 200; i++) {
+            chart.scrollChartBy(i < 100 ? -37f : 37f);
+            long before = threads.getThreadAllocatedBytes(thread);
+            chart.onDraw(canvas);
+            allocated += threads.getThreadAllocatedBytes(thread) - before;
+        }
+        assertEquals(0, allocated);
+    }
+
+    private static int[] lengths(int count) {
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = 26 + i % 6;
+        }
+        return lengths;
+    }
+}
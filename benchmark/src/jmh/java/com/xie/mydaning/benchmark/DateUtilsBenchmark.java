@@ -0,0 +1,91 @@
+package com.xie.mydaning.benchmark;
+
+import com.xie.mydaning.data.PeriodRecord;
+import com.xie.mydaning.utils.DateUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 日期换算与格式化：每次调用处理整段历史里的全部日期，结果按 records 条记录计。
+ */
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int records;
+
+    private Date[] dates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticHistory history = SyntheticHistory.generate(records);
+        dates = new Date[history.startRecords.size() + history.endRecords.size()];
+        int i = 0;
+        for (List<PeriodRecord> list : List.of(history.startRecords, history.endRecords)) {
+            for (PeriodRecord record : list) {
+                dates[i++] = record.date;
+            }
+        }
+    }
+
+    @Benchmark
+    public void getStartOfDay(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(DateUtils.getStartOfDay(date));
+        }
+    }
+
+    /** 相邻两条记录之间的天数，对应周期计算里最常见的用法。 */
+    @Benchmark
+    public long getDaysBetween() {
+        long total = 0;
+        for (int i = 1; i < dates.length; i++) {
+            total += DateUtils.getDaysBetween(dates[i - 1], dates[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void toEpochDay(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(DateUtils.toEpochDay(date));
+        }
+    }
+
+    @Benchmark
+    public void formatDate(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(DateUtils.formatDate(date));
+        }
+    }
+
+    @Benchmark
+    public void formatMonthDay(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(DateUtils.formatMonthDay(date));
+        }
+    }
+
+    @Benchmark
+    public void formatDay(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(DateUtils.formatDay(date));
+        }
+    }
+
+    @Benchmark
+    public void formatMonth(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(DateUtils.formatMonth(date));
+        }
+    }
+}
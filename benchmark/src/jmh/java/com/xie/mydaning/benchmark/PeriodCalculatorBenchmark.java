@@ -0,0 +1,97 @@
+package com.xie.mydaning.benchmark;
+
+import com.xie.mydaning.data.PeriodRecord;
+import com.xie.mydaning.utils.CyclePredictor;
+import com.xie.mydaning.utils.CycleTable;
+import com.xie.mydaning.utils.PeriodCalculator;
+import com.xie.mydaning.utils.PeriodStatsAggregator;
+import com.xie.mydaning.utils.WeightedRecentPredictor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 统计与配对：records 为历史中开始、结束记录的总数。
+ */
+@State(Scope.Benchmark)
+public class PeriodCalculatorBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int records;
+
+    private List<PeriodRecord> startRecords;
+    private List<PeriodRecord> endRecords;
+    private List<PeriodRecord> startRecordsWithNext;
+    private final CycleTable table = new CycleTable();
+    private final CyclePredictor predictor = new WeightedRecentPredictor();
+    private PeriodStatsAggregator aggregator;
+    private boolean appended;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticHistory history = SyntheticHistory.generate(records);
+        startRecords = history.startRecords;
+        endRecords = history.endRecords;
+        table.fill(startRecords, endRecords);
+
+        // 在最前面（最新）多一条开始记录，模拟记下一次新经期
+        PeriodRecord next = new PeriodRecord();
+        next.day = startRecords.get(0).day + 29;
+        next.type = "start";
+        startRecordsWithNext = new ArrayList<>(startRecords.size() + 1);
+        startRecordsWithNext.add(next);
+        startRecordsWithNext.addAll(startRecords);
+
+        aggregator = new PeriodStatsAggregator();
+        aggregator.rebuild(startRecords, endRecords);
+    }
+
+    @Benchmark
+    public int calculateAverageCycle() {
+        return PeriodCalculator.calculateAverageCycle(startRecords);
+    }
+
+    @Benchmark
+    public int calculateAveragePeriod() {
+        return PeriodCalculator.calculateAveragePeriod(startRecords, endRecords);
+    }
+
+    @Benchmark
+    public int calculateRegularity() {
+        return PeriodCalculator.calculateRegularity(startRecords);
+    }
+
+    @Benchmark
+    public PeriodCalculator.CurrentPeriodStatus getCurrentPeriodStatus() {
+        return PeriodCalculator.getCurrentPeriodStatus(startRecords, endRecords, predictor, SyntheticHistory.TODAY);
+    }
+
+    /** 复用同一张表的配对，不含统计。 */
+    @Benchmark
+    public CycleTable pairCycleTable() {
+        return table.fill(startRecords, endRecords);
+    }
+
+    /** 周期表建好之后，一次读出全部统计。 */
+    @Benchmark
+    public int statisticsFromTable() {
+        return PeriodCalculator.calculateAverageCycle(table)
+                + PeriodCalculator.calculateAveragePeriod(table)
+                + PeriodCalculator.calculateRegularity(table);
+    }
+
+    /** 增量路径：交替同步“多一条开始记录”和原始快照，每次只差一条。 */
+    @Benchmark
+    public int aggregatorSingleEdit() {
+        appended = !appended;
+        aggregator.sync(appended ? startRecordsWithNext : startRecords, endRecords);
+        return aggregator.getAverageCycle() + aggregator.getAveragePeriod() + aggregator.getRegularity();
+    }
+}
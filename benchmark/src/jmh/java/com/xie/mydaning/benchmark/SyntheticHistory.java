@@ -0,0 +1,51 @@
+package com.xie.mydaning.benchmark;
+
+import com.xie.mydaning.data.PeriodRecord;
+import com.xie.mydaning.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准用的合成历史：一半开始记录、一半结束记录，周期 24~35 天、经期 3~7 天，
+ * 偶尔漏记一次开始。列表顺序与 DAO 一致（按 day 倒序）。种子固定，每次运行数据相同。
+ */
+final class SyntheticHistory {
+    static final int TODAY = 20_000;
+
+    final List<PeriodRecord> startRecords;
+    final List<PeriodRecord> endRecords;
+
+    private SyntheticHistory(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+        this.startRecords = startRecords;
+        this.endRecords = endRecords;
+    }
+
+    /**
+     * @param records 开始与结束记录的总数
+     */
+    static SyntheticHistory generate(int records) {
+        Random random = new Random(records);
+        int cycles = Math.max(1, records / 2);
+        List<PeriodRecord> starts = new ArrayList<>(cycles);
+        List<PeriodRecord> ends = new ArrayList<>(cycles);
+        int day = TODAY - cycles * 30;
+        for (int i = 0; i < cycles; i++) {
+            starts.add(record(day, "start"));
+            ends.add(record(day + 2 + random.nextInt(5), "end"));
+            day += 24 + random.nextInt(12);
+            if (random.nextInt(50) == 0) {
+                day += 30; // 漏记一次，制造离群周期
+            }
+        }
+        Collections.reverse(starts);
+        Collections.reverse(ends);
+        return new SyntheticHistory(starts, ends);
+    }
+
+    private static PeriodRecord record(int day, String type) {
+        return new PeriodRecord(DateUtils.fromEpochDay(day), type, "normal", 0, null);
+    }
+}
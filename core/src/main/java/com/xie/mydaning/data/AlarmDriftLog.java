@@ -0,0 +1,204 @@
+package com.xie.mydaning.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 提醒闹钟的可靠性日志：每次安排和每次触发各记一条，存在定长的环形文件里，写满后覆盖最旧的记录。
+ *
+ * 文件由 32 字节的头（魔数、格式版本、容量、下一个写入位置、记录数）和定长记录组成，
+ * 追加一条只写一条记录和文件头。头不对或容量变了就清空重来。用户反馈提醒不准时，
+ * 用 {@link #driftStats} 看触发相对计划时间的延迟分布。
+ */
+public final class AlarmDriftLog {
+    public static final int EVENT_SCHEDULED = 1;
+    public static final int EVENT_FIRED = 2;
+
+    static final int MAGIC = 0x4D44414C; // "MDAL"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    // 类型名 8 字节、事件 4 字节、保留 4 字节、计划时间 8 字节、实际时间 8 字节
+    static final int RECORD_SIZE = 32;
+    private static final int KIND_BYTES = 8;
+
+    private final File file;
+    private final int capacity;
+
+    public AlarmDriftLog(File file, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须大于 0: " + capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 一条记录。安排时 actualAt 是安排的时刻，触发时是实际处理的时刻。
+     */
+    public static final class Entry {
+        public final String kind;
+        public final int event;
+        public final long scheduledAt;
+        public final long actualAt;
+
+        public Entry(String kind, int event, long scheduledAt, long actualAt) {
+            this.kind = kind;
+            this.event = event;
+            this.scheduledAt = scheduledAt;
+            this.actualAt = actualAt;
+        }
+
+        /** 实际时间比计划晚了多少毫秒，提前为负。 */
+        public long drift() {
+            return actualAt - scheduledAt;
+        }
+    }
+
+    /**
+     * 触发延迟的分位数，单位毫秒；count 为 0 时其余字段都是 0。
+     */
+    public static final class DriftStats {
+        public final int count;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long max;
+
+        DriftStats(long[] sortedDrifts) {
+            count = sortedDrifts.length;
+            p50 = percentile(sortedDrifts, 50);
+            p90 = percentile(sortedDrifts, 90);
+            p99 = percentile(sortedDrifts, 99);
+            max = count > 0 ? sortedDrifts[count - 1] : 0;
+        }
+
+        /** 最近秩法：不插值，结果总是某次真实的延迟。 */
+        static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+
+    public synchronized void append(String kind, int event, long scheduledAt, long actualAt) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int[] header = readHeader(raf);
+            int next = header[0];
+            int count = header[1];
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            byte[] name = kind.getBytes(StandardCharsets.US_ASCII);
+            record.put(name, 0, Math.min(name.length, KIND_BYTES));
+            record.position(KIND_BYTES);
+            record.putInt(event).putInt(0).putLong(scheduledAt).putLong(actualAt);
+            raf.seek(HEADER_SIZE + (long) next * RECORD_SIZE);
+            raf.write(record.array());
+
+            writeHeader(raf, (next + 1) % capacity, Math.min(count + 1, capacity));
+        }
+    }
+
+    /**
+     * 按写入先后返回现存的全部记录。文件不存在或损坏时返回空列表。
+     */
+    public synchronized List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>();
+        if (!file.isFile()) {
+            return entries;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            raf.readFully(header.array());
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || header.getInt() != capacity) {
+                return entries;
+            }
+            int next = header.getInt();
+            int count = header.getInt();
+            if (next < 0 || next >= capacity || count < 0 || count > capacity) {
+                return entries;
+            }
+
+            // 环形缓冲按 [next - count, next) 取出
+            byte[] body = new byte[count * RECORD_SIZE];
+            int first = Math.floorMod(next - count, capacity);
+            int head = Math.min(count, capacity - first);
+            raf.seek(HEADER_SIZE + (long) first * RECORD_SIZE);
+            raf.readFully(body, 0, head * RECORD_SIZE);
+            if (head < count) {
+                raf.seek(HEADER_SIZE);
+                raf.readFully(body, head * RECORD_SIZE, (count - head) * RECORD_SIZE);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte[] name = new byte[KIND_BYTES];
+            for (int i = 0; i < count; i++) {
+                buffer.get(name);
+                int length = 0;
+                while (length < KIND_BYTES && name[length] != 0) {
+                    length++;
+                }
+                int event = buffer.getInt();
+                buffer.getInt();
+                long scheduledAt = buffer.getLong();
+                long actualAt = buffer.getLong();
+                entries.add(new Entry(new String(name, 0, length, StandardCharsets.US_ASCII), event, scheduledAt, actualAt));
+            }
+        } catch (IOException e) {
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * 某类提醒触发延迟的分布；kind 为 null 时统计全部类型。
+     */
+    public DriftStats driftStats(String kind) {
+        List<Entry> entries = entries();
+        long[] drifts = new long[entries.size()];
+        int count = 0;
+        for (Entry entry : entries) {
+            if (entry.event == EVENT_FIRED && (kind == null || kind.equals(entry.kind))) {
+                drifts[count++] = entry.drift();
+            }
+        }
+        long[] sorted = Arrays.copyOf(drifts, count);
+        Arrays.sort(sorted);
+        return new DriftStats(sorted);
+    }
+
+    /**
+     * 读出 {next, count}；文件是新的、损坏或容量不同时重置并写入新的头。
+     */
+    private int[] readHeader(RandomAccessFile raf) throws IOException {
+        if (raf.length() >= HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            raf.seek(0);
+            raf.readFully(header.array());
+            if (header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION && header.getInt() == capacity) {
+                int next = header.getInt();
+                int count = header.getInt();
+                if (next >= 0 && next < capacity && count >= 0 && count <= capacity) {
+                    return new int[]{next, count};
+                }
+            }
+        }
+        raf.setLength(HEADER_SIZE);
+        writeHeader(raf, 0, 0);
+        return new int[]{0, 0};
+    }
+
+    private void writeHeader(RandomAccessFile raf, int next, int count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(capacity).putInt(next).putInt(count);
+        raf.seek(0);
+        raf.write(header.array());
+    }
+}
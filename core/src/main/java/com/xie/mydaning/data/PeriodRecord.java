@@ -0,0 +1,65 @@
+package com.xie.mydaning.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
+
+import com.xie.mydaning.utils.DateUtils;
+
+import java.util.Date;
+
+// (type, day) 供统计查询按类型取记录，date 供历史列表排序和按 (date, id) 分页（索引自带 rowid）
+@Entity(tableName = "period_records",
+        indices = {@Index(value = {"type", "day"}), @Index("date")})
+@TypeConverters(DateConverter.class)
+public class PeriodRecord {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+    
+    @NonNull
+    public Date date; // 不能为空：统计按 day、历史按 (date, id) 分页都依赖它
+    @ColumnInfo(defaultValue = "0")
+    public int day; // date 在本地时区的 epoch day，写入时由 date 推出
+    public String type; // "start", "end", "none"
+    public String flow; // "light", "normal", "heavy"
+    public int pain; // 0: 无痛, 1: 轻微, 2: 中度, 3: 严重
+    public String notes;
+    
+    public PeriodRecord() {
+    }
+    
+    /**
+     * @throws IllegalArgumentException date 为 null 时；day 由 date 推出，没有日期的记录无法统计
+     */
+    @Ignore
+    public PeriodRecord(Date date, String type, String flow, int pain, String notes) {
+        if (date == null) {
+            throw new IllegalArgumentException("记录的 date 不能为空");
+        }
+        this.date = date;
+        this.day = DateUtils.toEpochDay(date);
+        this.type = type;
+        this.flow = flow;
+        this.pain = pain;
+        this.notes = notes;
+    }
+    
+    /**
+     * 复制一条记录。界面上编辑时改副本，列表里持有的原对象保持不变。
+     */
+    @Ignore
+    public PeriodRecord(PeriodRecord other) {
+        this.id = other.id;
+        this.date = other.date;
+        this.day = other.day;
+        this.type = other.type;
+        this.flow = other.flow;
+        this.pain = other.pain;
+        this.notes = other.notes;
+    }
+}
+
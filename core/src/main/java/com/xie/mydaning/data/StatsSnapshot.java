@@ -0,0 +1,161 @@
+package com.xie.mydaning.data;
+
+import com.xie.mydaning.utils.CyclePredictor;
+import com.xie.mydaning.utils.PeriodCalculator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * 最近一次统计结果的快照，冷启动时同步读出，首页第一帧就能显示上次的数字。
+ *
+ * 文件很小：魔数、格式版本、定长字段和 CRC32。写入先写临时文件再改名，
+ * 读到缺失、损坏或版本不同的文件都按没有快照处理。当前状态不直接保存，
+ * 保存的是推出它的最近一次开始/结束日，读出时按当天日期重新推算。
+ */
+public final class StatsSnapshot {
+    static final int MAGIC = 0x4D445353; // "MDSS"
+    public static final int FORMAT_VERSION = 1;
+    // 魔数、版本之后的字段：8 个 int
+    private static final int PAYLOAD_SIZE = 8 * 4;
+
+    public final int averageCycle;
+    public final int averagePeriod;
+    public final int regularity;
+    public final int lastStartDay;
+    public final int lastEndDay;
+    /** 没有开始记录时为 null。 */
+    public final CyclePredictor.Forecast forecast;
+
+    public StatsSnapshot(int averageCycle, int averagePeriod, int regularity,
+                         int lastStartDay, int lastEndDay, CyclePredictor.Forecast forecast) {
+        this.averageCycle = averageCycle;
+        this.averagePeriod = averagePeriod;
+        this.regularity = regularity;
+        this.lastStartDay = lastStartDay;
+        this.lastEndDay = lastEndDay;
+        this.forecast = forecast;
+    }
+
+    /**
+     * 由一次完整统计的结果生成快照。
+     */
+    public static StatsSnapshot of(int averageCycle, int averagePeriod, int regularity,
+                                   PeriodCalculator.CurrentPeriodStatus status, CyclePredictor.Forecast forecast) {
+        return new StatsSnapshot(averageCycle, averagePeriod, regularity, status.startDay, status.endDay, forecast);
+    }
+
+    /**
+     * 按给定日期推算当前经期状态，与 {@link com.xie.mydaning.utils.PeriodStatsAggregator#getCurrentPeriodStatus} 一致。
+     */
+    public PeriodCalculator.CurrentPeriodStatus statusOn(int today) {
+        if (lastStartDay == PeriodCalculator.NO_DAY) {
+            return new PeriodCalculator.CurrentPeriodStatus(false, null, null, 0, null);
+        }
+        return PeriodCalculator.buildStatus(lastStartDay, lastEndDay, forecast, today);
+    }
+
+    public void writeTo(File file) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_SIZE);
+        payload.putInt(averageCycle).putInt(averagePeriod).putInt(regularity)
+                .putInt(lastStartDay).putInt(lastEndDay)
+                .putInt(forecast != null ? forecast.day : PeriodCalculator.NO_DAY)
+                .putInt(forecast != null ? forecast.earliestDay : PeriodCalculator.NO_DAY)
+                .putInt(forecast != null ? forecast.latestDay : PeriodCalculator.NO_DAY);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(PAYLOAD_SIZE + 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.write(payload.array());
+        out.writeLong(crc.getValue());
+
+        // 先写临时文件再改名，进程中途被杀也不会留下半个文件
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            bytes.writeTo(stream);
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("无法替换快照文件: " + file);
+        }
+    }
+
+    /**
+     * 读出快照；文件不存在、损坏或格式版本不同时返回 null。
+     */
+    public static StatsSnapshot readFrom(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream stream = new FileInputStream(file)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] payload = new byte[PAYLOAD_SIZE];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (in.readLong() != crc.getValue()) {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            int averageCycle = buffer.getInt();
+            int averagePeriod = buffer.getInt();
+            int regularity = buffer.getInt();
+            int lastStartDay = buffer.getInt();
+            int lastEndDay = buffer.getInt();
+            int forecastDay = buffer.getInt();
+            int earliestDay = buffer.getInt();
+            int latestDay = buffer.getInt();
+            CyclePredictor.Forecast forecast = forecastDay != PeriodCalculator.NO_DAY
+                    ? new CyclePredictor.Forecast(forecastDay, earliestDay, latestDay) : null;
+            return new StatsSnapshot(averageCycle, averagePeriod, regularity, lastStartDay, lastEndDay, forecast);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StatsSnapshot)) return false;
+        StatsSnapshot other = (StatsSnapshot) o;
+        return averageCycle == other.averageCycle
+                && averagePeriod == other.averagePeriod
+                && regularity == other.regularity
+                && lastStartDay == other.lastStartDay
+                && lastEndDay == other.lastEndDay
+                && sameForecast(forecast, other.forecast);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = averageCycle;
+        result = 31 * result + averagePeriod;
+        result = 31 * result + regularity;
+        result = 31 * result + lastStartDay;
+        result = 31 * result + lastEndDay;
+        return 31 * result + (forecast != null ? forecast.day : 0);
+    }
+
+    private static boolean sameForecast(CyclePredictor.Forecast a, CyclePredictor.Forecast b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.day == b.day && a.earliestDay == b.earliestDay && a.latestDay == b.latestDay;
+    }
+}
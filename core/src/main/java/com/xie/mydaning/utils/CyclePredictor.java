@@ -0,0 +1,68 @@
+package com.xie.mydaning.utils;
+
+import java.util.Date;
+
+/**
+ * 下次经期预测。实现只负责从历史周期估计下一个周期长度和离散度，
+ * 区间的换算统一由 {@link Forecast#of} 完成。
+ */
+public interface CyclePredictor {
+    /**
+     * @param startDays  升序的开始日（epoch day），只读 [0, count)
+     * @param count      开始日个数，至少为 1
+     * @param cycleStats 由这些开始日的周期长度算出的统计，用于判断离群周期
+     */
+    Forecast predict(int[] startDays, int count, CycleStatsKernel cycleStats);
+
+    /**
+     * 预测结果：预计开始日以及约 80% 置信区间 [earliestDay, latestDay]。
+     */
+    final class Forecast {
+        static final double Z_80 = 1.2816;
+        static final double MIN_SPREAD = 1.0;
+        static final int FALLBACK_MARGIN = 7;   // 没有可用周期时的区间半宽
+
+        public final int day;
+        public final int earliestDay;
+        public final int latestDay;
+
+        public Forecast(int day, int earliestDay, int latestDay) {
+            this.day = day;
+            this.earliestDay = earliestDay;
+            this.latestDay = latestDay;
+        }
+
+        /**
+         * 由最近一次开始日、估计的周期长度和离散度构造预测。
+         * samples 为参与估计的周期数，为 0 时退回默认周期和固定区间。
+         */
+        public static Forecast of(int lastStartDay, double cycleEstimate, double spread, int samples) {
+            if (samples == 0) {
+                int day = lastStartDay + PeriodCalculator.DEFAULT_CYCLE;
+                return new Forecast(day, day - FALLBACK_MARGIN, day + FALLBACK_MARGIN);
+            }
+            // 预测新样本的区间要把估计本身的误差算进去
+            double predictionSpread = Math.max(MIN_SPREAD, spread * Math.sqrt(1 + 1.0 / samples));
+            int margin = (int) Math.ceil(Z_80 * predictionSpread);
+            int day = lastStartDay + (int) Math.round(cycleEstimate);
+            return new Forecast(day, day - margin, day + margin);
+        }
+
+        public Date getDate() {
+            return DateUtils.fromEpochDay(day);
+        }
+
+        public Date getEarliestDate() {
+            return DateUtils.fromEpochDay(earliestDay);
+        }
+
+        public Date getLatestDate() {
+            return DateUtils.fromEpochDay(latestDay);
+        }
+
+        /** 区间半宽（天）。 */
+        public int getMargin() {
+            return Math.max(day - earliestDay, latestDay - day);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 历史图表用的周期序列：每个点是一个已结束的周期，x 为开始日（epoch day），y 为周期长度。
+ *
+ * 点按开始日升序存放在 int 数组里。新记下一次开始时只在末尾追加一个点，不重建。
+ * 明显偏长或偏短的周期（多半是漏记或误记了一次开始）用 {@link CycleStatsKernel} 的 MAD 规则剔除，
+ * 与平均周期的统计口径一致；新周期让保留区间变化、已有点的去留跟着变时整体重建。
+ * 画图时按屏幕能容纳的点数取数据：点数够用时原样返回，否则用 LTTB 降采样；
+ * 跨度很大时可改用按月或按年的平均值。每一层的结果按序列版本缓存，数据不变时重复取不再计算。
+ */
+public class CycleSeries {
+    public static final int LEVEL_CYCLE = 0;
+    public static final int LEVEL_MONTH = 1;
+    public static final int LEVEL_YEAR = 2;
+
+    /** 可见跨度超过约 3 年改按月平均，超过约 12 年改按年平均。 */
+    static final int MONTH_LEVEL_SPAN = 3 * 365;
+    static final int YEAR_LEVEL_SPAN = 12 * 365;
+
+    private int[] starts = new int[16];
+    private int startCount;
+    private int[] startBuffer = new int[16];
+    // 全部长度为正的周期，以及按长度计数的直方图，离群判断基于它们
+    private int[] cycleDays = new int[16];
+    private int[] cycleLengths = new int[16];
+    private int cycleCount;
+    private int[] histogram = new int[64];
+    private int histogramLimit;
+    private CycleStatsKernel stats = new CycleStatsKernel();
+    private CycleStatsKernel previousStats = new CycleStatsKernel();
+    private boolean rebuilt;
+    // 保留下来的点
+    private int[] days = new int[16];
+    private int[] lengths = new int[16];
+    private int size;
+    private int version;
+
+    private final Points[] cache = {new Points(), new Points(), new Points()};
+
+    /**
+     * 某一层的点，x、y 的前 count 个有效。由 {@link #points} 返回，调用方只读。
+     */
+    public static final class Points {
+        public float[] x = new float[0];
+        public float[] y = new float[0];
+        public int count;
+        int version = -1;
+        int maxPoints;
+
+        void ensureCapacity(int capacity) {
+            if (x.length < capacity) {
+                x = new float[capacity];
+                y = new float[capacity];
+            }
+        }
+    }
+
+    /**
+     * 按 DAO 返回的（按 day 倒序）开始记录同步。
+     *
+     * @return 只在末尾多出记录时（包括从空序列开始）返回新增的点数，没有变化为 0；其他变化整体重建，返回 -1
+     */
+    public int sync(List<PeriodRecord> startRecords) {
+        int count = startRecords != null ? startRecords.size() : 0;
+        startBuffer = ensureCapacity(startBuffer, count);
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            int day = startRecords.get(count - 1 - i).day;
+            startBuffer[i] = day;
+            if (i > 0 && day < startBuffer[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            Arrays.sort(startBuffer, 0, count);
+        }
+        return sync(startBuffer, count);
+    }
+
+    /**
+     * 按升序开始日同步，返回值同 {@link #sync(List)}。
+     */
+    public int sync(int[] ascendingStarts, int count) {
+        boolean samePrefix = count >= startCount;
+        for (int i = 0; samePrefix && i < startCount; i++) {
+            samePrefix = starts[i] == ascendingStarts[i];
+        }
+        if (samePrefix) {
+            int before = size;
+            rebuilt = false;
+            for (int i = startCount; i < count; i++) {
+                append(ascendingStarts[i]);
+            }
+            return rebuilt ? -1 : size - before;
+        }
+
+        startCount = 0;
+        cycleCount = 0;
+        Arrays.fill(histogram, 0, histogramLimit, 0);
+        histogramLimit = 0;
+        for (int i = 0; i < count; i++) {
+            addStart(ascendingStarts[i]);
+        }
+        stats.compute(histogram, histogramLimit);
+        rebuildPoints();
+        version++;
+        return -1;
+    }
+
+    /**
+     * 记下一次新的开始，上一次开始到这次之间成为一个新点。
+     *
+     * @throws IllegalArgumentException 开始日早于已有的最后一次开始
+     */
+    public void append(int startDay) {
+        int length = addStart(startDay);
+        if (length > 0) {
+            updateOutliers(length);
+        }
+        version++;
+    }
+
+    /** 记下开始日；与上一次之间长度为正时记为一个周期，返回其长度，否则返回 0。 */
+    private int addStart(int startDay) {
+        int length = 0;
+        if (startCount > 0) {
+            int previous = starts[startCount - 1];
+            if (startDay < previous) {
+                throw new IllegalArgumentException("开始日必须按时间顺序追加: " + startDay + " < " + previous);
+            }
+            length = startDay - previous;
+            if (length > 0) {
+                cycleDays = ensureCapacity(cycleDays, cycleCount + 1);
+                cycleLengths = ensureCapacity(cycleLengths, cycleCount + 1);
+                cycleDays[cycleCount] = previous;
+                cycleLengths[cycleCount] = length;
+                cycleCount++;
+                histogram = ensureCapacity(histogram, length + 1);
+                histogram[length]++;
+                histogramLimit = Math.max(histogramLimit, length + 1);
+            }
+        }
+        starts = ensureCapacity(starts, startCount + 1);
+        starts[startCount++] = startDay;
+        return length;
+    }
+
+    /**
+     * 新周期加入后重算保留区间。已有周期的去留都没变时只判断新周期；否则整体重建。
+     */
+    private void updateOutliers(int length) {
+        CycleStatsKernel previous = stats;
+        stats = previousStats;
+        previousStats = previous;
+        stats.compute(histogram, histogramLimit);
+
+        for (int v = 0; v < histogramLimit; v++) {
+            int existing = v == length ? histogram[v] - 1 : histogram[v];
+            if (existing > 0 && previous.isInlier(v) != stats.isInlier(v)) {
+                rebuildPoints();
+                rebuilt = true;
+                return;
+            }
+        }
+        if (stats.isInlier(length)) {
+            addPoint(cycleDays[cycleCount - 1], length);
+        }
+    }
+
+    private void rebuildPoints() {
+        size = 0;
+        for (int i = 0; i < cycleCount; i++) {
+            if (stats.isInlier(cycleLengths[i])) {
+                addPoint(cycleDays[i], cycleLengths[i]);
+            }
+        }
+    }
+
+    private void addPoint(int day, int length) {
+        days = ensureCapacity(days, size + 1);
+        lengths = ensureCapacity(lengths, size + 1);
+        days[size] = day;
+        lengths[size] = length;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int startDay(int index) {
+        return days[index];
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    /** 最后一次开始日，也就是进行中周期的起点；没有记录时为 {@link PeriodCalculator#NO_DAY}。 */
+    public int lastStart() {
+        return startCount > 0 ? starts[startCount - 1] : PeriodCalculator.NO_DAY;
+    }
+
+    /** 全部点覆盖的天数。 */
+    public int span() {
+        return size > 0 ? days[size - 1] - days[0] : 0;
+    }
+
+    /**
+     * 可见跨度（天）对应的细节层级。
+     */
+    public static int levelForSpan(int visibleDays) {
+        if (visibleDays > YEAR_LEVEL_SPAN) {
+            return LEVEL_YEAR;
+        }
+        return visibleDays > MONTH_LEVEL_SPAN ? LEVEL_MONTH : LEVEL_CYCLE;
+    }
+
+    /**
+     * 取某一层的点，最多 maxPoints 个（不少于 3）；超出时用 LTTB 降采样，首尾两点总是保留。
+     */
+    public Points points(int level, int maxPoints) {
+        int threshold = Math.max(3, maxPoints);
+        Points out = cache[level];
+        if (out.version == version && out.maxPoints == threshold) {
+            return out;
+        }
+        out.ensureCapacity(size);
+        int count;
+        if (level == LEVEL_CYCLE) {
+            for (int i = 0; i < size; i++) {
+                out.x[i] = days[i];
+                out.y[i] = lengths[i];
+            }
+            count = size;
+        } else {
+            count = aggregate(level == LEVEL_MONTH, out.x, out.y);
+        }
+        out.count = lttb(out.x, out.y, count, threshold, out.x, out.y);
+        out.version = version;
+        out.maxPoints = threshold;
+        return out;
+    }
+
+    /** 同一个月（或年）内开始的周期取平均，x 为这些开始日的平均值。 */
+    private int aggregate(boolean byMonth, float[] outX, float[] outY) {
+        int count = 0;
+        int bucket = 0;
+        long sumDays = 0;
+        long sumLengths = 0;
+        int members = 0;
+        for (int i = 0; i < size; i++) {
+            LocalDate date = LocalDate.ofEpochDay(days[i]);
+            int key = byMonth ? date.getYear() * 12 + date.getMonthValue() - 1 : date.getYear();
+            if (members > 0 && key != bucket) {
+                outX[count] = (float) sumDays / members;
+                outY[count] = (float) sumLengths / members;
+                count++;
+                sumDays = 0;
+                sumLengths = 0;
+                members = 0;
+            }
+            bucket = key;
+            sumDays += days[i];
+            sumLengths += lengths[i];
+            members++;
+        }
+        if (members > 0) {
+            outX[count] = (float) sumDays / members;
+            outY[count] = (float) sumLengths / members;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets 降采样：首尾保留，中间每个桶选与前一个选中点、
+     * 下一桶均值组成三角形面积最大的点。输出可以与输入是同一组数组，写入位置不会超过读取位置。
+     *
+     * @return 输出的点数
+     */
+    static int lttb(float[] x, float[] y, int count, int threshold, float[] outX, float[] outY) {
+        if (count <= threshold || threshold < 3) {
+            if (outX != x) {
+                System.arraycopy(x, 0, outX, 0, count);
+                System.arraycopy(y, 0, outY, 0, count);
+            }
+            return count;
+        }
+
+        double every = (double) (count - 2) / (threshold - 2);
+        float ax = x[0];
+        float ay = y[0];
+        outX[0] = ax;
+        outY[0] = ay;
+        int written = 1;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int from = (int) Math.floor(bucket * every) + 1;
+            int to = (int) Math.floor((bucket + 1) * every) + 1;
+
+            // 下一个桶的均值；最后一个桶以末点为准
+            int nextFrom = to;
+            int nextTo = Math.min((int) Math.floor((bucket + 2) * every) + 1, count);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextFrom; i < nextTo; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = nextTo - nextFrom;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            int chosen = from;
+            double maxArea = -1;
+            for (int i = from; i < to; i++) {
+                double area = Math.abs((ax - avgX) * (y[i] - ay) - (ax - x[i]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            ax = x[chosen];
+            ay = y[chosen];
+            outX[written] = ax;
+            outY[written] = ay;
+            written++;
+        }
+        outX[written] = x[count - 1];
+        outY[written] = y[count - 1];
+        return written + 1;
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
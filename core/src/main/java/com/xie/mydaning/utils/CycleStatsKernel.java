@@ -0,0 +1,197 @@
+package com.xie.mydaning.utils;
+
+import java.util.Arrays;
+
+/**
+ * 天数样本（周期长度、经期长度）的统计核。
+ *
+ * 样本是非负整数天数，按值计数存进直方图，所以中位数、MAD、百分位都只需顺序扫描
+ * 直方图，不排序、不装箱，计算过程不分配内存。离群值按 MAD 剔除：与中位数的距离超过
+ * {@value #OUTLIER_CUTOFF} 倍稳健标准差（1.4826 × MAD，至少 {@value #MIN_SPREAD} 天）的
+ * 样本不参与均值、标准差和百分位。
+ *
+ * 中位数和 MAD 基于全部样本；其余结果只基于保留下来的样本。非线程安全。
+ */
+public class CycleStatsKernel {
+    static final double MAD_SCALE = 1.4826;      // 正态分布下 MAD 与标准差的换算系数
+    static final double OUTLIER_CUTOFF = 3.0;
+    static final double MIN_SPREAD = 2.0;        // MAD 为 0 时（样本几乎全相同）也容许的最小离散度
+
+    private int[] samples = new int[64];
+    private int sampleLimit;
+
+    private int[] histogram;
+    private int count;
+    private double median;
+    private double mad;
+    private int low;
+    private int high;
+    private int inlierCount;
+    private double mean;
+    private double stddev;
+
+    /**
+     * 清空通过 {@link #add} 累积的样本。
+     */
+    public void clear() {
+        Arrays.fill(samples, 0, sampleLimit, 0);
+        sampleLimit = 0;
+    }
+
+    /**
+     * 加入一个样本，负数忽略。
+     */
+    public void add(int value) {
+        if (value < 0) {
+            return;
+        }
+        if (value >= samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(value + 1, samples.length * 2));
+        }
+        samples[value]++;
+        sampleLimit = Math.max(sampleLimit, value + 1);
+    }
+
+    /**
+     * 对 {@link #add} 累积的样本计算统计量。
+     */
+    public CycleStatsKernel compute() {
+        return compute(samples, sampleLimit);
+    }
+
+    /**
+     * 直接对外部直方图计算：histogram[v] 是值为 v 的样本个数，只看 [0, limit)。
+     * 结果会引用这个数组，在下一次 compute 之前不要修改它。
+     */
+    public CycleStatsKernel compute(int[] histogram, int limit) {
+        this.histogram = histogram;
+        count = 0;
+        for (int v = 0; v < limit; v++) {
+            count += histogram[v];
+        }
+        if (count == 0) {
+            median = mad = mean = stddev = 0;
+            low = 0;
+            high = -1;
+            inlierCount = 0;
+            return this;
+        }
+
+        median = (valueAtRank(histogram, 0, limit - 1, (count - 1) / 2)
+                + valueAtRank(histogram, 0, limit - 1, count / 2)) / 2.0;
+        mad = medianAbsoluteDeviation(histogram, limit);
+
+        double threshold = OUTLIER_CUTOFF * Math.max(MAD_SCALE * mad, MIN_SPREAD);
+        low = Math.max(0, (int) Math.ceil(median - threshold));
+        high = Math.min(limit - 1, (int) Math.floor(median + threshold));
+
+        long sum = 0;
+        long sumOfSquares = 0;
+        inlierCount = 0;
+        for (int v = low; v <= high; v++) {
+            int n = histogram[v];
+            if (n != 0) {
+                inlierCount += n;
+                sum += (long) n * v;
+                sumOfSquares += (long) n * v * v;
+            }
+        }
+        mean = (double) sum / inlierCount;
+        stddev = Math.sqrt(Math.max(0, (double) sumOfSquares / inlierCount - mean * mean));
+        return this;
+    }
+
+    /** 全部样本数。 */
+    public int count() {
+        return count;
+    }
+
+    /** 剔除离群值后保留的样本数。 */
+    public int inlierCount() {
+        return inlierCount;
+    }
+
+    public double median() {
+        return median;
+    }
+
+    /** 中位数绝对偏差（未乘换算系数）。 */
+    public double mad() {
+        return mad;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    /** 保留样本的总体标准差。 */
+    public double stddev() {
+        return stddev;
+    }
+
+    /** value 是否落在保留区间内（没有样本时一律为 false）。 */
+    public boolean isInlier(int value) {
+        return inlierCount > 0 && value >= low && value <= high;
+    }
+
+    /**
+     * 保留样本的百分位（最近秩法），percent 取 0~100；没有样本时返回 0。
+     */
+    public int percentile(int percent) {
+        if (inlierCount == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * inlierCount) - 1;
+        return valueAtRank(histogram, low, high, Math.max(0, Math.min(inlierCount - 1, rank)));
+    }
+
+    /** 直方图 [from, to] 内升序第 rank 个（从 0 起）样本的值。 */
+    private static int valueAtRank(int[] histogram, int from, int to, int rank) {
+        int seen = 0;
+        for (int v = from; v <= to; v++) {
+            seen += histogram[v];
+            if (seen > rank) {
+                return v;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * 从中位数向两侧合并扫描，按与中位数的距离从小到大数样本，取中间秩的距离。
+     * 距离统一乘 2 计算，中位数是 x.5 时也保持整数。
+     */
+    private double medianAbsoluteDeviation(int[] histogram, int limit) {
+        int median2 = (int) Math.round(median * 2);
+        int left = median2 / 2;   // 不大于中位数的值，向下走
+        int right = left + 1;     // 大于中位数的值，向上走
+        int lowerRank = (count - 1) / 2;
+        int upperRank = count / 2;
+        int lowerDeviation2 = -1;
+        int seen = 0;
+        while (left >= 0 || right < limit) {
+            int leftDeviation2 = left >= 0 ? median2 - 2 * left : Integer.MAX_VALUE;
+            int rightDeviation2 = right < limit ? 2 * right - median2 : Integer.MAX_VALUE;
+            int deviation2;
+            int n;
+            if (leftDeviation2 <= rightDeviation2) {
+                deviation2 = leftDeviation2;
+                n = histogram[left--];
+            } else {
+                deviation2 = rightDeviation2;
+                n = histogram[right++];
+            }
+            if (n == 0) {
+                continue;
+            }
+            seen += n;
+            if (lowerDeviation2 < 0 && seen > lowerRank) {
+                lowerDeviation2 = deviation2;
+            }
+            if (seen > upperRank) {
+                return (lowerDeviation2 + deviation2) / 4.0;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 开始记录与结束记录配对后的周期表，按开始日升序，数据存放在 int 数组里。
+ *
+ * 每个开始日配对离它最近、且早于下一次开始的结束日；没有则为 {@link PeriodCalculator#NO_DAY}。
+ * 两个有序序列一次双指针扫描完成配对，时间 O(starts + ends)。同一个实例可以反复
+ * {@link #fill} 复用，数组只在容量不够时扩容。
+ */
+public class CycleTable {
+    private int[] startDays = new int[16];
+    private int[] endDays = new int[16];
+    private int[] endBuffer = new int[16];
+    private int size;
+
+    /**
+     * 用 DAO 返回的（按 day 倒序）开始/结束记录新建一张周期表。
+     */
+    public static CycleTable pair(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+        CycleTable table = new CycleTable();
+        table.fill(startRecords, endRecords);
+        return table;
+    }
+
+    /**
+     * 丢弃当前内容，按给定记录重新配对。记录应按 day 倒序排列；顺序不对时会先排序。
+     */
+    public CycleTable fill(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+        int startCount = startRecords != null ? startRecords.size() : 0;
+        int endCount = endRecords != null ? endRecords.size() : 0;
+        startDays = ensureCapacity(startDays, startCount);
+        endBuffer = ensureCapacity(endBuffer, endCount);
+        copyAscending(startRecords, startDays, startCount);
+        copyAscending(endRecords, endBuffer, endCount);
+        size = startCount;
+        endDays = ensureCapacity(endDays, size);
+        pairEnds(startDays, size, endBuffer, endCount, endDays);
+        return this;
+    }
+
+    /**
+     * 双指针配对：starts、ends 均为升序，结果写入 pairedEnds[0, startCount)。
+     */
+    static void pairEnds(int[] starts, int startCount, int[] ends, int endCount, int[] pairedEnds) {
+        int j = 0;
+        for (int i = 0; i < startCount; i++) {
+            int start = starts[i];
+            while (j < endCount && ends[j] < start) {
+                j++;
+            }
+            boolean beforeNextStart = i == startCount - 1 || (j < endCount && ends[j] < starts[i + 1]);
+            pairedEnds[i] = j < endCount && beforeNextStart ? ends[j] : PeriodCalculator.NO_DAY;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int startDay(int index) {
+        return startDays[index];
+    }
+
+    /** 与该开始日配对的结束日，没有则为 {@link PeriodCalculator#NO_DAY}。 */
+    public int endDay(int index) {
+        return endDays[index];
+    }
+
+    /** 本次开始到下一次开始的天数；最后一个周期还没结束，返回 {@link PeriodCalculator#NO_DAY}。 */
+    public int cycleLength(int index) {
+        return index < size - 1 ? startDays[index + 1] - startDays[index] : PeriodCalculator.NO_DAY;
+    }
+
+    /** 经期天数（含首尾），没有配对的结束日时返回 {@link PeriodCalculator#NO_DAY}。 */
+    public int periodLength(int index) {
+        int end = endDays[index];
+        return end != PeriodCalculator.NO_DAY ? end - startDays[index] + 1 : PeriodCalculator.NO_DAY;
+    }
+
+    private static void copyAscending(List<PeriodRecord> records, int[] target, int count) {
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            target[i] = records.get(count - 1 - i).day;
+            if (i > 0 && target[i] < target[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            Arrays.sort(target, 0, count);
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return array.length >= capacity ? array : new int[Math.max(capacity, array.length * 2)];
+    }
+}
@@ -0,0 +1,197 @@
+package com.xie.mydaning.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+public class DateUtils {
+    private static final String DATE_PATTERN = "yyyy年MM月dd日";
+    private static final String MONTH_DAY_PATTERN = "MM月dd日";
+    private static final String DAY_PATTERN = "dd";
+    private static final String MONTH_PATTERN = "MM月";
+    
+    // 按 epoch day 缓存格式化结果；语言变化时整体换掉
+    private static volatile FormatCache formatCache = new FormatCache(Locale.getDefault());
+    
+    public static String formatDate(Date date) {
+        return formatDate(toEpochDay(date));
+    }
+    
+    public static String formatMonthDay(Date date) {
+        return formatMonthDay(toEpochDay(date));
+    }
+    
+    public static String formatDay(Date date) {
+        return formatDay(toEpochDay(date));
+    }
+    
+    public static String formatMonth(Date date) {
+        return formatMonth(toEpochDay(date));
+    }
+    
+    public static String formatDate(int epochDay) {
+        return formatCache().get(epochDay).date;
+    }
+    
+    public static String formatMonthDay(int epochDay) {
+        return formatCache().get(epochDay).monthDay;
+    }
+    
+    public static String formatDay(int epochDay) {
+        return formatCache().get(epochDay).day;
+    }
+    
+    public static String formatMonth(int epochDay) {
+        return formatCache().get(epochDay).month;
+    }
+    
+    /**
+     * 丢弃已缓存的格式化结果，在系统语言变化时调用。
+     */
+    public static void onLocaleChanged() {
+        formatCache = new FormatCache(Locale.getDefault());
+    }
+    
+    private static FormatCache formatCache() {
+        FormatCache cache = formatCache;
+        if (!cache.locale.equals(Locale.getDefault())) {
+            cache = new FormatCache(Locale.getDefault());
+            formatCache = cache;
+        }
+        return cache;
+    }
+    
+    /**
+     * 直接映射的定长缓存：epoch day 取低位作为槽位，冲突时覆盖。DateTimeFormatter
+     * 本身线程安全，条目创建后不再修改，多个线程同时写同一个槽位最多重复格式化一次。
+     */
+    private static final class FormatCache {
+        private static final int SIZE = 1024; // 2 的幂，约覆盖连续 2.8 年
+        
+        final Locale locale;
+        private final DateTimeFormatter dateFormatter;
+        private final DateTimeFormatter monthDayFormatter;
+        private final DateTimeFormatter dayFormatter;
+        private final DateTimeFormatter monthFormatter;
+        private final Entry[] entries = new Entry[SIZE];
+        
+        FormatCache(Locale locale) {
+            this.locale = locale;
+            dateFormatter = DateTimeFormatter.ofPattern(DATE_PATTERN, locale);
+            monthDayFormatter = DateTimeFormatter.ofPattern(MONTH_DAY_PATTERN, locale);
+            dayFormatter = DateTimeFormatter.ofPattern(DAY_PATTERN, locale);
+            monthFormatter = DateTimeFormatter.ofPattern(MONTH_PATTERN, locale);
+        }
+        
+        Entry get(int epochDay) {
+            int slot = epochDay & (SIZE - 1);
+            Entry entry = entries[slot];
+            if (entry == null || entry.epochDay != epochDay) {
+                entry = new Entry(epochDay, this);
+                entries[slot] = entry;
+            }
+            return entry;
+        }
+    }
+    
+    private static final class Entry {
+        final int epochDay;
+        final String date;
+        final String monthDay;
+        final String day;
+        final String month;
+        
+        Entry(int epochDay, FormatCache cache) {
+            LocalDate localDate = LocalDate.ofEpochDay(epochDay);
+            this.epochDay = epochDay;
+            this.date = cache.dateFormatter.format(localDate);
+            this.monthDay = cache.monthDayFormatter.format(localDate);
+            this.day = cache.dayFormatter.format(localDate);
+            this.month = cache.monthFormatter.format(localDate);
+        }
+    }
+    
+    /**
+     * 两个日期之间相差的自然日数，按本地日历计算，跨夏令时也不会少算一天。
+     */
+    public static int getDaysBetween(Date start, Date end) {
+        return toEpochDay(end) - toEpochDay(start);
+    }
+    
+    /**
+     * 本地时区下的 epoch day（1970-01-01 为第 0 天）。
+     */
+    public static int toEpochDay(Date date) {
+        return toEpochDay(date.getTime());
+    }
+    
+    public static int toEpochDay(long millis) {
+        return (int) Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+    
+    /**
+     * epoch day 对应那天本地时间 0 点的 Date。
+     */
+    public static Date fromEpochDay(int epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+    
+    public static Date addDays(Date date, int days) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.add(Calendar.DAY_OF_MONTH, days);
+        return calendar.getTime();
+    }
+    
+    public static Date getStartOfDay(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+    
+    public static Date getEndOfDay(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 23);
+        calendar.set(Calendar.MINUTE, 59);
+        calendar.set(Calendar.SECOND, 59);
+        calendar.set(Calendar.MILLISECOND, 999);
+        return calendar.getTime();
+    }
+    
+    public static Date getStartOfMonth(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+    
+    public static Date getStartOfYear(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.MONTH, 0);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+}
+
@@ -0,0 +1,42 @@
+package com.xie.mydaning.utils;
+
+/**
+ * 对周期长度做简单指数平滑，区间取一步预测误差的均方根；离群周期跳过。
+ */
+public class ExponentialSmoothingPredictor implements CyclePredictor {
+    static final double DEFAULT_ALPHA = 0.3;
+
+    private final double alpha;
+
+    public ExponentialSmoothingPredictor() {
+        this(DEFAULT_ALPHA);
+    }
+
+    public ExponentialSmoothingPredictor(double alpha) {
+        this.alpha = Math.min(1, Math.max(0.01, alpha));
+    }
+
+    @Override
+    public Forecast predict(int[] startDays, int count, CycleStatsKernel cycleStats) {
+        double level = 0;
+        double squaredError = 0;
+        int used = 0;
+        for (int i = 1; i < count; i++) {
+            int cycleLength = startDays[i] - startDays[i - 1];
+            if (cycleLength <= 0 || !cycleStats.isInlier(cycleLength)) {
+                continue;
+            }
+            if (used == 0) {
+                level = cycleLength;
+            } else {
+                double error = cycleLength - level;
+                squaredError += error * error;
+                level += alpha * error;
+            }
+            used++;
+        }
+        // 只有一个周期时还没有预测误差，退回周期标准差
+        double spread = used > 1 ? Math.sqrt(squaredError / (used - 1)) : cycleStats.stddev();
+        return Forecast.of(startDays[count - 1], level, spread, used);
+    }
+}
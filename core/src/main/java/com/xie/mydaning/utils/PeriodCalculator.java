@@ -0,0 +1,227 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 经期统计。所有日期运算都基于记录上的 epoch day（int），不再为每条记录构造 Calendar。
+ * 开始/结束记录先配对成 {@link CycleTable}，各项统计都从周期表读取。
+ */
+public class PeriodCalculator {
+    /** 没有对应日期时使用的占位值。 */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    static final int DEFAULT_CYCLE = 28;
+    static final int DEFAULT_PERIOD = 5;
+
+    /**
+     * 计算平均周期长度
+     */
+    public static int calculateAverageCycle(List<PeriodRecord> startRecords) {
+        return calculateAverageCycle(CycleTable.pair(startRecords, null));
+    }
+
+    public static int calculateAverageCycle(CycleTable table) {
+        if (table.size() < 2) {
+            return DEFAULT_CYCLE;
+        }
+        return averageCycle(cycleStats(table, new CycleStatsKernel()));
+    }
+
+    /**
+     * 计算平均经期长度
+     */
+    public static int calculateAveragePeriod(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+        return calculateAveragePeriod(CycleTable.pair(startRecords, endRecords));
+    }
+
+    public static int calculateAveragePeriod(CycleTable table) {
+        if (table.isEmpty()) {
+            return DEFAULT_PERIOD;
+        }
+        return averagePeriod(periodStats(table, new CycleStatsKernel()));
+    }
+
+    /**
+     * 计算规律度
+     */
+    public static int calculateRegularity(List<PeriodRecord> startRecords) {
+        return calculateRegularity(CycleTable.pair(startRecords, null));
+    }
+
+    public static int calculateRegularity(CycleTable table) {
+        if (table.size() < 3) {
+            return 0;
+        }
+        return regularity(cycleStats(table, new CycleStatsKernel()));
+    }
+
+    /**
+     * 把周期表里的周期长度装入 kernel 并计算。同一天的重复开始（长度为 0）不算周期。
+     */
+    public static CycleStatsKernel cycleStats(CycleTable table, CycleStatsKernel kernel) {
+        kernel.clear();
+        for (int i = 0; i < table.size() - 1; i++) {
+            int cycleLength = table.cycleLength(i);
+            if (cycleLength > 0) {
+                kernel.add(cycleLength);
+            }
+        }
+        return kernel.compute();
+    }
+
+    /**
+     * 把周期表里已配对的经期长度装入 kernel 并计算。
+     */
+    public static CycleStatsKernel periodStats(CycleTable table, CycleStatsKernel kernel) {
+        kernel.clear();
+        for (int i = 0; i < table.size(); i++) {
+            int periodLength = table.periodLength(i);
+            if (periodLength > 0) {
+                kernel.add(periodLength);
+            }
+        }
+        return kernel.compute();
+    }
+
+    /** 剔除离群值后周期长度的均值，四舍五入；没有有效周期时为默认 28 天。 */
+    public static int averageCycle(CycleStatsKernel cycleStats) {
+        return cycleStats.inlierCount() > 0 ? (int) Math.round(cycleStats.mean()) : DEFAULT_CYCLE;
+    }
+
+    /** 剔除离群值后经期长度的均值，四舍五入；没有有效经期时为默认 5 天。 */
+    public static int averagePeriod(CycleStatsKernel periodStats) {
+        return periodStats.inlierCount() > 0 ? (int) Math.round(periodStats.mean()) : DEFAULT_PERIOD;
+    }
+
+    /**
+     * 规律度：保留周期的标准差每多 1 天扣 5 分，再按离群周期所占比例打折。
+     * 有效周期少于 2 个时为 0。
+     */
+    public static int regularity(CycleStatsKernel cycleStats) {
+        if (cycleStats.inlierCount() < 2) {
+            return 0;
+        }
+        double score = (100 - cycleStats.stddev() * 5) * cycleStats.inlierCount() / cycleStats.count();
+        return (int) Math.min(100, Math.max(0, Math.round(score)));
+    }
+
+    /**
+     * 只凭升序的开始日预测下次经期，结果与 {@link PeriodStatsAggregator#getForecast} 相同；
+     * 没有开始日时返回 null。供开机恢复等不维护增量统计的场合使用。
+     */
+    public static CyclePredictor.Forecast forecast(int[] startDays, int count, CyclePredictor predictor) {
+        if (count == 0) {
+            return null;
+        }
+        CycleStatsKernel kernel = new CycleStatsKernel();
+        for (int i = 1; i < count; i++) {
+            int cycleLength = startDays[i] - startDays[i - 1];
+            if (cycleLength > 0) {
+                kernel.add(cycleLength);
+            }
+        }
+        return predictor.predict(startDays, count, kernel.compute());
+    }
+
+    /**
+     * 预测下次经期开始日期
+     */
+    public static Date predictNextPeriod(Date lastStartDate, int averageCycle) {
+        return DateUtils.addDays(lastStartDate, averageCycle);
+    }
+
+    /**
+     * 获取当前经期状态
+     */
+    public static class CurrentPeriodStatus {
+        public boolean isActive;
+        public Date startDate;
+        public Date endDate;
+        public int currentDay;
+        public Date nextPeriodDate;
+        public int startDay = NO_DAY;
+        public int endDay = NO_DAY;
+        public int nextPeriodDay = NO_DAY;
+
+        public CurrentPeriodStatus(boolean isActive, Date startDate, Date endDate, int currentDay, Date nextPeriodDate) {
+            this.isActive = isActive;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.currentDay = currentDay;
+            this.nextPeriodDate = nextPeriodDate;
+        }
+
+        public CurrentPeriodStatus(boolean isActive, int startDay, int endDay, int currentDay, int nextPeriodDay) {
+            this(isActive,
+                    startDay != NO_DAY ? DateUtils.fromEpochDay(startDay) : null,
+                    endDay != NO_DAY ? DateUtils.fromEpochDay(endDay) : null,
+                    currentDay,
+                    nextPeriodDay != NO_DAY ? DateUtils.fromEpochDay(nextPeriodDay) : null);
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.nextPeriodDay = nextPeriodDay;
+        }
+    }
+
+    public static CurrentPeriodStatus getCurrentPeriodStatus(List<PeriodRecord> startRecords,
+                                                             List<PeriodRecord> endRecords,
+                                                             CyclePredictor predictor) {
+        return getCurrentPeriodStatus(startRecords, endRecords, predictor, DateUtils.today());
+    }
+
+    public static CurrentPeriodStatus getCurrentPeriodStatus(List<PeriodRecord> startRecords,
+                                                             List<PeriodRecord> endRecords,
+                                                             CyclePredictor predictor,
+                                                             int today) {
+        return getCurrentPeriodStatus(CycleTable.pair(startRecords, endRecords), predictor, today);
+    }
+
+    /**
+     * 下次经期日取自 predictor 的预测，与首页预测和经期提醒用的是同一个结果。
+     */
+    public static CurrentPeriodStatus getCurrentPeriodStatus(CycleTable table, CyclePredictor predictor, int today) {
+        if (table.isEmpty()) {
+            return new CurrentPeriodStatus(false, null, null, 0, null);
+        }
+
+        int[] startDays = new int[table.size()];
+        for (int i = 0; i < startDays.length; i++) {
+            startDays[i] = table.startDay(i);
+        }
+        // 最近一次开始记录，以及与它配对的结束记录
+        int last = table.size() - 1;
+        return buildStatus(table.startDay(last), table.endDay(last),
+                forecast(startDays, startDays.length, predictor), today);
+    }
+
+    /**
+     * 由最近一次开始日、与之配对的结束日（可为 {@link #NO_DAY}）和下次经期预测推出当前状态。
+     * 没有预测时下次经期日为 {@link #NO_DAY}。
+     */
+    public static CurrentPeriodStatus buildStatus(int lastStartDay, int lastEndDay,
+                                                  CyclePredictor.Forecast forecast, int today) {
+        boolean isActive = false;
+        int currentDay = 0;
+
+        if (lastEndDay == NO_DAY) {
+            // 没有结束记录，说明经期可能还在进行
+            if (today >= lastStartDay) {
+                isActive = true;
+                currentDay = today - lastStartDay + 1;
+            }
+        } else {
+            // 有结束记录
+            if (today > lastStartDay && today <= lastEndDay) {
+                isActive = true;
+                currentDay = today - lastStartDay + 1;
+            }
+        }
+
+        int nextPeriodDay = forecast != null ? forecast.day : NO_DAY;
+
+        return new CurrentPeriodStatus(isActive, lastStartDay, lastEndDay, currentDay, nextPeriodDay);
+    }
+}
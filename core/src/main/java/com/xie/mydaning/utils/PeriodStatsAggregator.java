@@ -0,0 +1,425 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 增量维护的经期统计，结果与 {@link PeriodCalculator} 完全一致。
+ *
+ * 开始日和结束日各保存为升序的 int 数组；周期长度和经期长度按天数累计在直方图里，
+ * 查询时直接交给 {@link CycleStatsKernel}，数据没变时复用上次结果。经期按 {@link CycleTable}
+ * 的规则配对（最近的、早于下一次开始的结束日）。单条记录的增删改只更新受影响的
+ * 相邻周期，新快照与当前状态差异超过一处时才整体重建。
+ *
+ * 非线程安全，调用方需保证在同一线程上使用。
+ */
+public class PeriodStatsAggregator {
+    private int[] starts = new int[16];
+    private int startCount;
+    private int[] ends = new int[16];
+    private int endCount;
+    private int[] pairedEnds = new int[16]; // 重建时的配对缓冲
+
+    private int[] cycleHistogram = new int[64];
+    private int cycleLimit;
+    private final CycleStatsKernel cycleStats = new CycleStatsKernel();
+    private boolean cycleStatsStale = true;
+
+    private int[] periodHistogram = new int[16];
+    private int periodLimit;
+    private final CycleStatsKernel periodStats = new CycleStatsKernel();
+    private boolean periodStatsStale = true;
+
+    // 开始日每变一次版本号加一，预测结果按版本号缓存
+    private int historyVersion;
+    private int forecastVersion = -1;
+    private CyclePredictor forecastPredictor;
+    private CyclePredictor.Forecast forecast;
+
+    /**
+     * 用按 day 倒序的开始/结束记录（即 DAO 返回的顺序）同步内部状态。
+     * 只差一条记录时走增量路径，否则重建。
+     */
+    public void sync(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+        syncStarts(startRecords);
+        syncEnds(endRecords);
+    }
+
+    /**
+     * 丢弃当前状态，按给定记录重新统计。
+     */
+    public void rebuild(List<PeriodRecord> startRecords, List<PeriodRecord> endRecords) {
+        startCount = copyDays(startRecords, true);
+        endCount = copyDays(endRecords, false);
+        historyVersion++;
+        recomputeCycles();
+        recomputePeriods();
+    }
+
+    public void addStart(int day) {
+        int index = upperBound(starts, startCount, day);
+        // 前一个开始日的配对范围会被新开始日截断
+        if (index > 0) {
+            removePeriod(periodLengthAt(index - 1));
+        }
+        starts = insertAt(starts, startCount, index, day);
+        startCount++;
+        historyVersion++;
+        if (index > 0) {
+            addPeriod(periodLengthAt(index - 1));
+        }
+        addPeriod(periodLengthAt(index));
+
+        int prev = index > 0 ? starts[index - 1] : PeriodCalculator.NO_DAY;
+        int next = index < startCount - 1 ? starts[index + 1] : PeriodCalculator.NO_DAY;
+        if (prev != PeriodCalculator.NO_DAY && next != PeriodCalculator.NO_DAY) {
+            removeCycle(next - prev);
+        }
+        if (prev != PeriodCalculator.NO_DAY) {
+            addCycle(day - prev);
+        }
+        if (next != PeriodCalculator.NO_DAY) {
+            addCycle(next - day);
+        }
+    }
+
+    public void removeStart(int day) {
+        int index = indexOf(starts, startCount, day);
+        if (index < 0) {
+            return;
+        }
+        int prev = index > 0 ? starts[index - 1] : PeriodCalculator.NO_DAY;
+        int next = index < startCount - 1 ? starts[index + 1] : PeriodCalculator.NO_DAY;
+        if (prev != PeriodCalculator.NO_DAY) {
+            removeCycle(day - prev);
+        }
+        if (next != PeriodCalculator.NO_DAY) {
+            removeCycle(next - day);
+        }
+        if (prev != PeriodCalculator.NO_DAY && next != PeriodCalculator.NO_DAY) {
+            addCycle(next - prev);
+        }
+        removePeriod(periodLengthAt(index));
+        if (index > 0) {
+            removePeriod(periodLengthAt(index - 1));
+        }
+
+        System.arraycopy(starts, index + 1, starts, index, startCount - index - 1);
+        startCount--;
+        historyVersion++;
+        if (index > 0) {
+            addPeriod(periodLengthAt(index - 1));
+        }
+    }
+
+    public void addEnd(int day) {
+        // 结束日只会影响不晚于它的最后一个开始日
+        int owner = upperBound(starts, startCount, day) - 1;
+        if (owner >= 0) {
+            removePeriod(periodLengthAt(owner));
+        }
+        int index = upperBound(ends, endCount, day);
+        ends = insertAt(ends, endCount, index, day);
+        endCount++;
+        if (owner >= 0) {
+            addPeriod(periodLengthAt(owner));
+        }
+    }
+
+    public void removeEnd(int day) {
+        int index = indexOf(ends, endCount, day);
+        if (index < 0) {
+            return;
+        }
+        int owner = upperBound(starts, startCount, day) - 1;
+        if (owner >= 0) {
+            removePeriod(periodLengthAt(owner));
+        }
+        System.arraycopy(ends, index + 1, ends, index, endCount - index - 1);
+        endCount--;
+        if (owner >= 0) {
+            addPeriod(periodLengthAt(owner));
+        }
+    }
+
+    public int getAverageCycle() {
+        if (startCount < 2) {
+            return PeriodCalculator.DEFAULT_CYCLE;
+        }
+        return PeriodCalculator.averageCycle(cycleStats());
+    }
+
+    public int getAveragePeriod() {
+        if (startCount == 0) {
+            return PeriodCalculator.DEFAULT_PERIOD;
+        }
+        return PeriodCalculator.averagePeriod(periodStats());
+    }
+
+    public int getRegularity() {
+        if (startCount < 3) {
+            return 0;
+        }
+        return PeriodCalculator.regularity(cycleStats());
+    }
+
+    /**
+     * 用给定的预测器预测下次经期，没有开始记录时返回 null。
+     * 开始日没有变化、预测器也相同时直接返回上次的结果（同一个对象）。
+     */
+    public CyclePredictor.Forecast getForecast(CyclePredictor predictor) {
+        if (forecastVersion != historyVersion || forecastPredictor != predictor) {
+            forecast = startCount > 0 ? predictor.predict(starts, startCount, cycleStats()) : null;
+            forecastVersion = historyVersion;
+            forecastPredictor = predictor;
+        }
+        return forecast;
+    }
+
+    private CycleStatsKernel cycleStats() {
+        if (cycleStatsStale) {
+            cycleStats.compute(cycleHistogram, cycleLimit);
+            cycleStatsStale = false;
+        }
+        return cycleStats;
+    }
+
+    private CycleStatsKernel periodStats() {
+        if (periodStatsStale) {
+            periodStats.compute(periodHistogram, periodLimit);
+            periodStatsStale = false;
+        }
+        return periodStats;
+    }
+
+    /**
+     * 当前经期状态，下次经期日取自 {@link #getForecast} 的同一个预测。
+     */
+    public PeriodCalculator.CurrentPeriodStatus getCurrentPeriodStatus(int today, CyclePredictor predictor) {
+        if (startCount == 0) {
+            return new PeriodCalculator.CurrentPeriodStatus(false, null, null, 0, null);
+        }
+        int last = startCount - 1;
+        return PeriodCalculator.buildStatus(starts[last], periodEndAt(last), getForecast(predictor), today);
+    }
+
+    private void syncStarts(List<PeriodRecord> records) {
+        int size = records != null ? records.size() : 0;
+        int edit = findSingleEdit(starts, startCount, records, size);
+        if (edit == NO_CHANGE) {
+            return;
+        }
+        if (edit == REBUILD) {
+            startCount = copyDays(records, true);
+            historyVersion++;
+            recomputeCycles();
+            recomputePeriods();
+            return;
+        }
+        if (size > startCount) {
+            addStart(dayAt(records, size, edit));
+        } else if (size < startCount) {
+            removeStart(starts[edit]);
+        } else {
+            removeStart(starts[edit]);
+            addStart(dayAt(records, size, edit));
+        }
+    }
+
+    private void syncEnds(List<PeriodRecord> records) {
+        int size = records != null ? records.size() : 0;
+        int edit = findSingleEdit(ends, endCount, records, size);
+        if (edit == NO_CHANGE) {
+            return;
+        }
+        if (edit == REBUILD) {
+            endCount = copyDays(records, false);
+            recomputePeriods();
+            return;
+        }
+        if (size > endCount) {
+            addEnd(dayAt(records, size, edit));
+        } else if (size < endCount) {
+            removeEnd(ends[edit]);
+        } else {
+            removeEnd(ends[edit]);
+            addEnd(dayAt(records, size, edit));
+        }
+    }
+
+    private static final int NO_CHANGE = -1;
+    private static final int REBUILD = -2;
+
+    /**
+     * 比较升序数组与倒序记录列表，恰好差一次插入、删除或替换时返回该位置（升序下标），
+     * 完全相同返回 {@link #NO_CHANGE}，其余情况返回 {@link #REBUILD}。
+     */
+    private static int findSingleEdit(int[] days, int count, List<PeriodRecord> records, int size) {
+        if (Math.abs(size - count) > 1) {
+            return REBUILD;
+        }
+        int common = Math.min(size, count);
+        int i = 0;
+        while (i < common && days[i] == dayAt(records, size, i)) {
+            i++;
+        }
+        if (i == common && size == count) {
+            return NO_CHANGE;
+        }
+        // i 之后的部分错开一位（插入/删除）或跳过一位（替换）后必须完全一致
+        int a = size <= count ? i + 1 : i;
+        int b = size >= count ? i + 1 : i;
+        while (a < count && b < size) {
+            if (days[a] != dayAt(records, size, b)) {
+                return REBUILD;
+            }
+            a++;
+            b++;
+        }
+        return i;
+    }
+
+    /** 倒序列表按升序下标取 day。 */
+    private static int dayAt(List<PeriodRecord> records, int size, int ascendingIndex) {
+        return records.get(size - 1 - ascendingIndex).day;
+    }
+
+    private int copyDays(List<PeriodRecord> records, boolean intoStarts) {
+        int size = records != null ? records.size() : 0;
+        int[] target = intoStarts ? starts : ends;
+        if (target.length < size) {
+            target = new int[Math.max(size, target.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            target[i] = dayAt(records, size, i);
+        }
+        Arrays.sort(target, 0, size);
+        if (intoStarts) {
+            starts = target;
+        } else {
+            ends = target;
+        }
+        return size;
+    }
+
+    private void recomputeCycles() {
+        Arrays.fill(cycleHistogram, 0, cycleLimit, 0);
+        cycleLimit = 0;
+        cycleStatsStale = true;
+        for (int i = 1; i < startCount; i++) {
+            addCycle(starts[i] - starts[i - 1]);
+        }
+    }
+
+    private void recomputePeriods() {
+        Arrays.fill(periodHistogram, 0, periodLimit, 0);
+        periodLimit = 0;
+        periodStatsStale = true;
+        if (pairedEnds.length < startCount) {
+            pairedEnds = new int[starts.length];
+        }
+        CycleTable.pairEnds(starts, startCount, ends, endCount, pairedEnds);
+        for (int i = 0; i < startCount; i++) {
+            if (pairedEnds[i] != PeriodCalculator.NO_DAY) {
+                addPeriod(pairedEnds[i] - starts[i] + 1);
+            }
+        }
+    }
+
+    private void addCycle(int length) {
+        if (length > 0) {
+            if (length >= cycleHistogram.length) {
+                cycleHistogram = Arrays.copyOf(cycleHistogram, Math.max(length + 1, cycleHistogram.length * 2));
+            }
+            cycleHistogram[length]++;
+            cycleLimit = Math.max(cycleLimit, length + 1);
+            cycleStatsStale = true;
+        }
+    }
+
+    private void removeCycle(int length) {
+        if (length > 0) {
+            cycleHistogram[length]--;
+            cycleStatsStale = true;
+        }
+    }
+
+    private void addPeriod(int length) {
+        if (length > 0) {
+            if (length >= periodHistogram.length) {
+                periodHistogram = Arrays.copyOf(periodHistogram, Math.max(length + 1, periodHistogram.length * 2));
+            }
+            periodHistogram[length]++;
+            periodLimit = Math.max(periodLimit, length + 1);
+            periodStatsStale = true;
+        }
+    }
+
+    private void removePeriod(int length) {
+        if (length > 0) {
+            periodHistogram[length]--;
+            periodStatsStale = true;
+        }
+    }
+
+    /**
+     * 第 index 个开始日配对的结束日：第一个不早于它、且早于下一次开始的结束日。
+     */
+    private int periodEndAt(int index) {
+        int start = starts[index];
+        int j = lowerBound(ends, endCount, start);
+        if (j == endCount || (index < startCount - 1 && ends[j] >= starts[index + 1])) {
+            return PeriodCalculator.NO_DAY;
+        }
+        return ends[j];
+    }
+
+    private int periodLengthAt(int index) {
+        int end = periodEndAt(index);
+        return end != PeriodCalculator.NO_DAY ? end - starts[index] + 1 : PeriodCalculator.NO_DAY;
+    }
+
+    private static int[] insertAt(int[] array, int count, int index, int value) {
+        if (count == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        System.arraycopy(array, index, array, index + 1, count - index);
+        array[index] = value;
+        return array;
+    }
+
+    private static int indexOf(int[] array, int count, int value) {
+        int index = lowerBound(array, count, value);
+        return index < count && array[index] == value ? index : -1;
+    }
+
+    private static int lowerBound(int[] array, int count, int value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(int[] array, int count, int value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
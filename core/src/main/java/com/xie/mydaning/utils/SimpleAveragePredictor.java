@@ -0,0 +1,12 @@
+package com.xie.mydaning.utils;
+
+/**
+ * 最后一次开始日加上剔除离群值后的平均周期，区间取周期标准差。
+ */
+public class SimpleAveragePredictor implements CyclePredictor {
+
+    @Override
+    public Forecast predict(int[] startDays, int count, CycleStatsKernel cycleStats) {
+        return Forecast.of(startDays[count - 1], cycleStats.mean(), cycleStats.stddev(), cycleStats.inlierCount());
+    }
+}
@@ -0,0 +1,100 @@
+package com.xie.mydaning.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * 喝水提醒的安排规则：间隔、允许推迟的容差和夜间免打扰时段。
+ *
+ * 到期时刻是从开启提醒那一刻（锚点）起、每隔一个间隔的网格点。下一次总是取上一次之后的
+ * 下一个网格点，某次提醒晚到不会把后面的都往后推。
+ *
+ * 容差为 0 时按精确时间提醒；大于 0 时提醒可以落在 [到期时刻, 到期时刻 + 容差] 内任意一点，
+ * 系统借此把它和别的闹钟合并成一次唤醒。容差最多取间隔的一半，短间隔不会被拖成长间隔。
+ * 落在免打扰时段内的网格点跳过，夜里不安排。
+ */
+public final class WaterReminderPlan {
+    public static final long MINUTE_MILLIS = 60_000L;
+
+    public final long anchorMillis;
+    public final long intervalMillis;
+    public final long toleranceMillis;
+    // 免打扰时段，用当天 0 点起的分钟数表示，可以跨午夜；两者相等表示不启用
+    public final int quietStartMinute;
+    public final int quietEndMinute;
+
+    public WaterReminderPlan(long anchorMillis, int intervalMinutes, int toleranceMinutes,
+                             int quietStartMinute, int quietEndMinute) {
+        this.anchorMillis = anchorMillis;
+        this.intervalMillis = Math.max(1, intervalMinutes) * MINUTE_MILLIS;
+        this.toleranceMillis = Math.min(Math.max(0, toleranceMinutes) * MINUTE_MILLIS, intervalMillis / 2);
+        this.quietStartMinute = Math.floorMod(quietStartMinute, 24 * 60);
+        this.quietEndMinute = Math.floorMod(quietEndMinute, 24 * 60);
+    }
+
+    public boolean hasQuietHours() {
+        return quietStartMinute != quietEndMinute;
+    }
+
+    public boolean isQuiet(long millis, ZoneId zone) {
+        if (!hasQuietHours()) {
+            return false;
+        }
+        return inQuietHours(minuteOfDay(Instant.ofEpochMilli(millis).atZone(zone)));
+    }
+
+    /**
+     * millis 落在免打扰时段内时顺延到时段结束，否则原样返回。
+     */
+    public long skipQuietHours(long millis, ZoneId zone) {
+        if (!hasQuietHours()) {
+            return millis;
+        }
+        ZonedDateTime time = Instant.ofEpochMilli(millis).atZone(zone);
+        int minute = minuteOfDay(time);
+        if (!inQuietHours(minute)) {
+            return millis;
+        }
+        LocalDate endDate = time.toLocalDate();
+        if (quietStartMinute > quietEndMinute && minute >= quietStartMinute) {
+            // 跨午夜的时段里午夜之前的部分，结束时刻在第二天
+            endDate = endDate.plusDays(1);
+        }
+        // 结束时刻正好落在夏令时跳过的那一小时时，atZone 会顺延到跳变之后
+        return endDate.atTime(LocalTime.ofSecondOfDay(quietEndMinute * 60L))
+                .atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * afterMillis 之后（不含）第一个不在免打扰时段内的网格点。
+     */
+    public long nextDue(long afterMillis, ZoneId zone) {
+        long due = gridPointAfter(afterMillis);
+        // 顺延到免打扰结束后的第一个网格点。间隔比白天还长时它可能又落进下一段免打扰，
+        // 每轮至少前进一天，最多找一年
+        for (int i = 0; i < 366 && isQuiet(due, zone); i++) {
+            due = gridPointAfter(skipQuietHours(due, zone) - 1);
+        }
+        return due;
+    }
+
+    /** 严格晚于 millis 的第一个网格点。 */
+    private long gridPointAfter(long millis) {
+        long steps = Math.floorDiv(millis - anchorMillis, intervalMillis) + 1;
+        return anchorMillis + steps * intervalMillis;
+    }
+
+    private boolean inQuietHours(int minute) {
+        if (quietStartMinute < quietEndMinute) {
+            return minute >= quietStartMinute && minute < quietEndMinute;
+        }
+        return minute >= quietStartMinute || minute < quietEndMinute;
+    }
+
+    private static int minuteOfDay(ZonedDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
@@ -0,0 +1,51 @@
+package com.xie.mydaning.utils;
+
+/**
+ * 最近几个周期的线性加权平均，越近的周期权重越大；离群周期跳过。
+ */
+public class WeightedRecentPredictor implements CyclePredictor {
+    static final int DEFAULT_WINDOW = 6;
+
+    private final int window;
+
+    public WeightedRecentPredictor() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public WeightedRecentPredictor(int window) {
+        this.window = Math.max(1, window);
+    }
+
+    @Override
+    public Forecast predict(int[] startDays, int count, CycleStatsKernel cycleStats) {
+        double weightedSum = 0;
+        double weightTotal = 0;
+        int used = 0;
+        // 从最近的周期往前取，权重 window, window-1, ..., 1
+        for (int i = count - 1; i > 0 && used < window; i--) {
+            int cycleLength = startDays[i] - startDays[i - 1];
+            if (cycleLength > 0 && cycleStats.isInlier(cycleLength)) {
+                int weight = window - used;
+                weightedSum += weight * cycleLength;
+                weightTotal += weight;
+                used++;
+            }
+        }
+        if (used == 0) {
+            return Forecast.of(startDays[count - 1], 0, 0, 0);
+        }
+
+        double estimate = weightedSum / weightTotal;
+        double squaredError = 0;
+        int seen = 0;
+        for (int i = count - 1; i > 0 && seen < used; i--) {
+            int cycleLength = startDays[i] - startDays[i - 1];
+            if (cycleLength > 0 && cycleStats.isInlier(cycleLength)) {
+                int weight = window - seen;
+                squaredError += weight * (cycleLength - estimate) * (cycleLength - estimate);
+                seen++;
+            }
+        }
+        return Forecast.of(startDays[count - 1], estimate, Math.sqrt(squaredError / weightTotal), used);
+    }
+}
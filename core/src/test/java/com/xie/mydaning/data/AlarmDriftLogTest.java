@@ -0,0 +1,96 @@
+package com.xie.mydaning.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlarmDriftLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendsAndReadsBackInOrder() throws Exception {
+        AlarmDriftLog log = new AlarmDriftLog(new File(folder.getRoot(), "drift"), 16);
+        log.append("water", AlarmDriftLog.EVENT_SCHEDULED, 1_000, 400);
+        log.append("water", AlarmDriftLog.EVENT_FIRED, 1_000, 1_250);
+        log.append("period", AlarmDriftLog.EVENT_FIRED, 5_000, 4_990);
+
+        List<AlarmDriftLog.Entry> entries = log.entries();
+
+        assertEquals(3, entries.size());
+        assertEquals("water", entries.get(0).kind);
+        assertEquals(AlarmDriftLog.EVENT_SCHEDULED, entries.get(0).event);
+        assertEquals(250, entries.get(1).drift());
+        assertEquals("period", entries.get(2).kind);
+        assertEquals(-10, entries.get(2).drift());
+    }
+
+    @Test
+    public void fileSizeStaysBoundedAndOldestAreOverwritten() throws Exception {
+        File file = new File(folder.getRoot(), "drift");
+        AlarmDriftLog log = new AlarmDriftLog(file, 8);
+        for (int i = 0; i < 21; i++) {
+            log.append("water", AlarmDriftLog.EVENT_FIRED, i * 1_000L, i * 1_000L + i);
+        }
+
+        List<AlarmDriftLog.Entry> entries = log.entries();
+
+        assertEquals(8, entries.size());
+        assertEquals(13, entries.get(0).drift());
+        assertEquals(20, entries.get(7).drift());
+        assertEquals(AlarmDriftLog.HEADER_SIZE + 8 * AlarmDriftLog.RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void percentilesUseNearestRankOverFiredEntries() throws Exception {
+        AlarmDriftLog log = new AlarmDriftLog(new File(folder.getRoot(), "drift"), 256);
+        for (int i = 1; i <= 100; i++) {
+            log.append("water", AlarmDriftLog.EVENT_FIRED, 0, i * 1_000L);
+            log.append("water", AlarmDriftLog.EVENT_SCHEDULED, 0, 999_999);
+        }
+        log.append("period", AlarmDriftLog.EVENT_FIRED, 0, 500_000);
+
+        AlarmDriftLog.DriftStats water = log.driftStats("water");
+        assertEquals(100, water.count);
+        assertEquals(50_000, water.p50);
+        assertEquals(90_000, water.p90);
+        assertEquals(99_000, water.p99);
+        assertEquals(100_000, water.max);
+
+        assertEquals(101, log.driftStats(null).count);
+        assertEquals(500_000, log.driftStats(null).max);
+        assertEquals(0, log.driftStats("none").count);
+    }
+
+    @Test
+    public void corruptHeaderOrOtherCapacityStartsOver() throws Exception {
+        File file = new File(folder.getRoot(), "drift");
+        new AlarmDriftLog(file, 8).append("water", AlarmDriftLog.EVENT_FIRED, 0, 10);
+
+        AlarmDriftLog resized = new AlarmDriftLog(file, 4);
+        assertTrue(resized.entries().isEmpty());
+        resized.append("water", AlarmDriftLog.EVENT_FIRED, 0, 20);
+        assertEquals(1, resized.entries().size());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(0);
+            raf.writeInt(0);
+        }
+        assertTrue(resized.entries().isEmpty());
+    }
+
+    @Test
+    public void longKindIsTruncated() throws Exception {
+        AlarmDriftLog log = new AlarmDriftLog(new File(folder.getRoot(), "drift"), 4);
+        log.append("medication", AlarmDriftLog.EVENT_FIRED, 0, 1);
+
+        assertEquals("medicati", log.entries().get(0).kind);
+    }
+}
@@ -0,0 +1,28 @@
+package com.xie.mydaning.data;
+
+import com.xie.mydaning.utils.DateUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PeriodRecordTest {
+
+    @Test
+    public void constructorDerivesDayFromDate() {
+        PeriodRecord record = new PeriodRecord(DateUtils.fromEpochDay(19_800), "start", "normal", 1, null);
+
+        assertEquals(19_800, record.day);
+        assertEquals("start", record.type);
+    }
+
+    @Test
+    public void nullDateIsRejectedWithMessage() {
+        try {
+            new PeriodRecord(null, "start", "normal", 1, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("date"));
+        }
+    }
+}
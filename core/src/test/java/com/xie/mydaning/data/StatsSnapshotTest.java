@@ -0,0 +1,88 @@
+package com.xie.mydaning.data;
+
+import com.xie.mydaning.utils.CyclePredictor;
+import com.xie.mydaning.utils.PeriodCalculator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class StatsSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsAllFields() throws Exception {
+        File file = new File(folder.getRoot(), "stats_snapshot");
+        StatsSnapshot snapshot = new StatsSnapshot(29, 6, 87, 20_000, 20_005,
+                new CyclePredictor.Forecast(20_029, 20_026, 20_032));
+
+        snapshot.writeTo(file);
+        StatsSnapshot loaded = StatsSnapshot.readFrom(file);
+
+        assertEquals(snapshot, loaded);
+        assertEquals(20_026, loaded.forecast.earliestDay);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void emptyHistoryHasNoForecast() throws Exception {
+        File file = new File(folder.getRoot(), "stats_snapshot");
+        new StatsSnapshot(28, 5, 0, PeriodCalculator.NO_DAY, PeriodCalculator.NO_DAY, null).writeTo(file);
+
+        StatsSnapshot loaded = StatsSnapshot.readFrom(file);
+
+        assertNull(loaded.forecast);
+        assertFalse(loaded.statusOn(20_000).isActive);
+    }
+
+    @Test
+    public void statusIsRecomputedForToday() {
+        // 快照写于经期第 2 天，两天后读出应为第 4 天
+        StatsSnapshot snapshot = new StatsSnapshot(28, 5, 90, 20_000, PeriodCalculator.NO_DAY,
+                new CyclePredictor.Forecast(20_030, 20_027, 20_033));
+
+        assertEquals(2, snapshot.statusOn(20_001).currentDay);
+        PeriodCalculator.CurrentPeriodStatus later = snapshot.statusOn(20_003);
+        assertTrue(later.isActive);
+        assertEquals(4, later.currentDay);
+        // 下次经期日跟随保存的预测，而不是开始日加平均周期
+        assertEquals(20_030, later.nextPeriodDay);
+    }
+
+    @Test
+    public void missingOrCorruptFileReadsAsNoSnapshot() throws Exception {
+        File file = new File(folder.getRoot(), "stats_snapshot");
+        assertNull(StatsSnapshot.readFrom(file));
+
+        new StatsSnapshot(29, 6, 87, 20_000, 20_005, null).writeTo(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(12);
+            raf.writeInt(99);
+        }
+        assertNull(StatsSnapshot.readFrom(file));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(10);
+        }
+        assertNull(StatsSnapshot.readFrom(file));
+    }
+
+    @Test
+    public void otherFormatVersionIsIgnored() throws Exception {
+        File file = new File(folder.getRoot(), "stats_snapshot");
+        new StatsSnapshot(29, 6, 87, 20_000, 20_005, null).writeTo(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(StatsSnapshot.FORMAT_VERSION + 1);
+        }
+
+        assertNull(StatsSnapshot.readFrom(file));
+    }
+}
@@ -0,0 +1,98 @@
+package com.xie.mydaning.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CyclePredictorTest {
+
+    @Test
+    public void regularHistoryGivesTightIntervalForEveryPredictor() {
+        int[] starts = startsFromCycles(1_000, 28, 28, 28, 28, 28);
+        for (CyclePredictor predictor : predictors()) {
+            CyclePredictor.Forecast forecast = predict(predictor, starts);
+            assertEquals(starts[starts.length - 1] + 28, forecast.day);
+            assertTrue(forecast.earliestDay < forecast.day && forecast.day < forecast.latestDay);
+            assertTrue(forecast.getMargin() <= 2);
+        }
+    }
+
+    @Test
+    public void skippedCycleDoesNotMoveForecast() {
+        int[] starts = startsFromCycles(1_000, 29, 30, 29, 88, 30, 29);
+        for (CyclePredictor predictor : predictors()) {
+            CyclePredictor.Forecast forecast = predict(predictor, starts);
+            int cycle = forecast.day - starts[starts.length - 1];
+            assertTrue(predictor.getClass().getSimpleName() + " " + cycle, cycle >= 29 && cycle <= 30);
+        }
+    }
+
+    @Test
+    public void recentPredictorsFollowTrend() {
+        int[] starts = startsFromCycles(1_000, 26, 26, 26, 26, 32, 32, 32);
+        int simple = predict(new SimpleAveragePredictor(), starts).day;
+        int weighted = predict(new WeightedRecentPredictor(), starts).day;
+        int smoothed = predict(new ExponentialSmoothingPredictor(), starts).day;
+
+        assertTrue(weighted > simple);
+        assertTrue(smoothed > simple);
+    }
+
+    @Test
+    public void singleStartFallsBackToDefaultCycle() {
+        int[] starts = {1_000};
+        for (CyclePredictor predictor : predictors()) {
+            CyclePredictor.Forecast forecast = predict(predictor, starts);
+            assertEquals(1_000 + PeriodCalculator.DEFAULT_CYCLE, forecast.day);
+            assertEquals(CyclePredictor.Forecast.FALLBACK_MARGIN, forecast.getMargin());
+        }
+    }
+
+    @Test
+    public void aggregatorMemoizesForecastUntilStartsChange() {
+        PeriodStatsAggregator aggregator = new PeriodStatsAggregator();
+        CyclePredictor predictor = new SimpleAveragePredictor();
+        assertNull(aggregator.getForecast(predictor));
+
+        aggregator.addStart(1_000);
+        aggregator.addStart(1_028);
+        CyclePredictor.Forecast first = aggregator.getForecast(predictor);
+        assertSame(first, aggregator.getForecast(predictor));
+
+        // 结束记录不影响预测
+        aggregator.addEnd(1_032);
+        assertSame(first, aggregator.getForecast(predictor));
+
+        aggregator.addStart(1_057);
+        CyclePredictor.Forecast second = aggregator.getForecast(predictor);
+        assertNotSame(first, second);
+        assertEquals(1_057 + 29, second.day);
+
+        assertNotSame(second, aggregator.getForecast(new WeightedRecentPredictor()));
+    }
+
+    private static CyclePredictor[] predictors() {
+        return new CyclePredictor[] {
+                new SimpleAveragePredictor(),
+                new WeightedRecentPredictor(),
+                new ExponentialSmoothingPredictor()
+        };
+    }
+
+    private static CyclePredictor.Forecast predict(CyclePredictor predictor, int[] starts) {
+        CycleStatsKernel kernel = new CycleStatsKernel();
+        for (int i = 1; i < starts.length; i++) {
+            kernel.add(starts[i] - starts[i - 1]);
+        }
+        return predictor.predict(starts, starts.length, kernel.compute());
+    }
+
+    private static int[] startsFromCycles(int first, int... cycles) {
+        int[] starts = new int[cycles.length + 1];
+        starts[0] = first;
+        for (int i = 0; i < cycles.length; i++) {
+            starts[i + 1] = starts[i] + cycles[i];
+        }
+        return starts;
+    }
+}
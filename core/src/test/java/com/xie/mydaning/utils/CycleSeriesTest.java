@@ -0,0 +1,154 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CycleSeriesTest {
+
+    @Test
+    public void pointsAreCyclesBetweenConsecutiveStarts() {
+        CycleSeries series = new CycleSeries();
+        series.sync(starts(100, 128, 157, 240, 268));
+
+        // 157 -> 240 远离其他周期，按 MAD 规则判为离群（多半漏记了一次开始），不画
+        assertEquals(3, series.size());
+        assertEquals(100, series.startDay(0));
+        assertEquals(28, series.length(0));
+        assertEquals(29, series.length(1));
+        assertEquals(240, series.startDay(2));
+        assertEquals(28, series.length(2));
+        assertEquals(268, series.lastStart());
+    }
+
+    @Test
+    public void newStartIsAppendedWithoutRebuilding() {
+        CycleSeries series = new CycleSeries();
+        assertEquals(2, series.sync(starts(100, 128, 157)));
+        CycleSeries.Points before = series.points(CycleSeries.LEVEL_CYCLE, 100);
+        assertEquals(2, before.count);
+
+        assertEquals(0, series.sync(starts(100, 128, 157)));
+        assertSame(before, series.points(CycleSeries.LEVEL_CYCLE, 100));
+
+        assertEquals(1, series.sync(starts(100, 128, 157, 186)));
+        assertEquals(3, series.size());
+        assertEquals(28, series.length(0));
+        assertEquals(29, series.length(2));
+        assertEquals(3, series.points(CycleSeries.LEVEL_CYCLE, 100).count);
+    }
+
+    @Test
+    public void editInTheMiddleRebuilds() {
+        CycleSeries series = new CycleSeries();
+        series.sync(starts(100, 128, 157));
+
+        assertEquals(-1, series.sync(starts(100, 130, 157)));
+        assertEquals(30, series.length(0));
+        assertEquals(27, series.length(1));
+    }
+
+    @Test
+    public void sameDayStartIsNotACycle() {
+        CycleSeries series = new CycleSeries();
+        series.sync(starts(100, 128, 128, 157));
+
+        assertEquals(2, series.size());
+        assertEquals(28, series.length(0));
+        assertEquals(29, series.length(1));
+    }
+
+    @Test
+    public void outlierCutoffFollowsHistory() {
+        CycleSeries series = new CycleSeries();
+        // 三个 28 天之后的 40 天离群
+        series.sync(new int[]{0, 28, 56, 84, 124}, 5);
+        assertEquals(3, series.size());
+
+        // 36 天仍然离群，只追加不重建
+        assertEquals(0, series.sync(new int[]{0, 28, 56, 84, 124, 160}, 6));
+        assertEquals(3, series.size());
+
+        // 再来一个 38 天后周期普遍变长，保留区间放宽，之前离群的点要补回来
+        assertEquals(-1, series.sync(new int[]{0, 28, 56, 84, 124, 160, 198}, 7));
+        assertEquals(6, series.size());
+        assertEquals(40, series.length(3));
+        assertEquals(36, series.length(4));
+        assertEquals(38, series.length(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendRejectsEarlierStart() {
+        CycleSeries series = new CycleSeries();
+        series.append(100);
+        series.append(90);
+    }
+
+    @Test
+    public void downsamplingKeepsEndpointsAndSpikes() {
+        CycleSeries series = new CycleSeries();
+        int day = 0;
+        series.append(day);
+        for (int i = 0; i < 1_000; i++) {
+            day += i == 500 ? 33 : 28;
+            series.append(day);
+        }
+
+        CycleSeries.Points points = series.points(CycleSeries.LEVEL_CYCLE, 50);
+
+        assertEquals(50, points.count);
+        assertEquals(series.startDay(0), points.x[0], 0f);
+        assertEquals(series.startDay(series.size() - 1), points.x[points.count - 1], 0f);
+        float max = 0;
+        for (int i = 1; i < points.count; i++) {
+            assertTrue(points.x[i] > points.x[i - 1]);
+            max = Math.max(max, points.y[i]);
+        }
+        assertEquals(33f, max, 0f);
+    }
+
+    @Test
+    public void aggregatesByMonthAndYear() {
+        CycleSeries series = new CycleSeries();
+        int jan1 = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+        // 2024 年 1 月两个周期（28、30 天），2 月一个（30 天），3 月之后漏记，2025 年 1 月一个（26 天）
+        series.sync(new int[]{jan1, jan1 + 28, jan1 + 58, jan1 + 88, jan1 + 375, jan1 + 401}, 6);
+
+        CycleSeries.Points months = series.points(CycleSeries.LEVEL_MONTH, 100);
+        assertEquals(3, months.count);
+        assertEquals(29f, months.y[0], 1e-6f);
+        assertEquals(jan1 + 14f, months.x[0], 1e-3f);
+        assertEquals(30f, months.y[1], 1e-6f);
+        assertEquals(26f, months.y[2], 1e-6f);
+
+        CycleSeries.Points years = series.points(CycleSeries.LEVEL_YEAR, 100);
+        assertEquals(2, years.count);
+        assertEquals((28f + 30f + 30f) / 3f, years.y[0], 1e-5f);
+        assertEquals(26f, years.y[1], 1e-6f);
+    }
+
+    @Test
+    public void levelFollowsVisibleSpan() {
+        assertEquals(CycleSeries.LEVEL_CYCLE, CycleSeries.levelForSpan(365));
+        assertEquals(CycleSeries.LEVEL_MONTH, CycleSeries.levelForSpan(5 * 365));
+        assertEquals(CycleSeries.LEVEL_YEAR, CycleSeries.levelForSpan(20 * 365));
+    }
+
+    /** 按 DAO 的顺序（day 倒序）构造开始记录。 */
+    private static List<PeriodRecord> starts(int... ascendingDays) {
+        List<PeriodRecord> records = new ArrayList<>();
+        for (int i = ascendingDays.length - 1; i >= 0; i--) {
+            PeriodRecord record = new PeriodRecord();
+            record.type = "start";
+            record.day = ascendingDays[i];
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,104 @@
+package com.xie.mydaning.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CycleStatsKernelTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void rejectsSkippedCycleAsOutlier() {
+        CycleStatsKernel kernel = kernelOf(28, 29, 27, 30, 28, 91);
+
+        assertEquals(6, kernel.count());
+        assertEquals(5, kernel.inlierCount());
+        assertEquals(28.5, kernel.median(), EPSILON);
+        assertEquals(28.4, kernel.mean(), EPSILON);
+        assertEquals(30, kernel.percentile(100));
+    }
+
+    @Test
+    public void identicalSamplesKeepSmallDeviations() {
+        // MAD 为 0 时仍按最小离散度容许相邻几天的波动
+        CycleStatsKernel kernel = kernelOf(28, 28, 28, 28, 30);
+
+        assertEquals(0.0, kernel.mad(), EPSILON);
+        assertEquals(5, kernel.inlierCount());
+    }
+
+    @Test
+    public void evenCountUsesMiddlePair() {
+        CycleStatsKernel kernel = kernelOf(26, 27, 30, 31);
+
+        assertEquals(28.5, kernel.median(), EPSILON);
+        assertEquals(2.0, kernel.mad(), EPSILON);
+        assertEquals(27, kernel.percentile(50));
+    }
+
+    @Test
+    public void emptyKernelReportsNothing() {
+        CycleStatsKernel kernel = new CycleStatsKernel().compute();
+
+        assertEquals(0, kernel.count());
+        assertEquals(0, kernel.inlierCount());
+        assertEquals(0, kernel.percentile(90));
+    }
+
+    @Test
+    public void matchesSortedReferenceOnRandomSamples() {
+        Random random = new Random(11L);
+        CycleStatsKernel kernel = new CycleStatsKernel();
+        for (int trial = 0; trial < 1_000; trial++) {
+            int[] values = new int[1 + random.nextInt(40)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(10) == 0 ? random.nextInt(200) : 24 + random.nextInt(10);
+            }
+            kernel.clear();
+            for (int value : values) {
+                kernel.add(value);
+            }
+            kernel.compute();
+
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            double median = median(sorted);
+            double[] deviations = new double[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                deviations[i] = Math.abs(sorted[i] - median);
+            }
+            Arrays.sort(deviations);
+            double mad = (deviations[(sorted.length - 1) / 2] + deviations[sorted.length / 2]) / 2;
+            assertEquals("trial " + trial, median, kernel.median(), EPSILON);
+            assertEquals("trial " + trial, mad, kernel.mad(), EPSILON);
+
+            double threshold = CycleStatsKernel.OUTLIER_CUTOFF
+                    * Math.max(CycleStatsKernel.MAD_SCALE * mad, CycleStatsKernel.MIN_SPREAD);
+            int kept = 0;
+            double sum = 0;
+            for (int value : sorted) {
+                if (Math.abs(value - median) <= threshold) {
+                    kept++;
+                    sum += value;
+                }
+            }
+            assertEquals("trial " + trial, kept, kernel.inlierCount());
+            assertEquals("trial " + trial, sum / kept, kernel.mean(), 1e-6);
+        }
+    }
+
+    private static CycleStatsKernel kernelOf(int... values) {
+        CycleStatsKernel kernel = new CycleStatsKernel();
+        for (int value : values) {
+            kernel.add(value);
+        }
+        return kernel.compute();
+    }
+
+    private static double median(int[] sorted) {
+        return (sorted[(sorted.length - 1) / 2] + sorted[sorted.length / 2]) / 2.0;
+    }
+}
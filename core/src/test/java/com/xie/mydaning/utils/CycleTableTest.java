@@ -0,0 +1,111 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CycleTableTest {
+
+    @Test
+    public void pairsEachStartWithClosestEndBeforeNextStart() {
+        CycleTable table = CycleTable.pair(
+                records("start", 100, 128, 157),
+                records("end", 104, 106, 131, 170));
+
+        assertEquals(3, table.size());
+        assertEquals(100, table.startDay(0));
+        assertEquals(104, table.endDay(0));
+        assertEquals(5, table.periodLength(0));
+        assertEquals(28, table.cycleLength(0));
+        assertEquals(131, table.endDay(1));
+        assertEquals(29, table.cycleLength(1));
+        assertEquals(170, table.endDay(2));
+        assertEquals(PeriodCalculator.NO_DAY, table.cycleLength(2));
+    }
+
+    @Test
+    public void startWithoutEndBeforeNextStartIsUnpaired() {
+        CycleTable table = CycleTable.pair(
+                records("start", 100, 128),
+                records("end", 130));
+
+        assertEquals(PeriodCalculator.NO_DAY, table.endDay(0));
+        assertEquals(PeriodCalculator.NO_DAY, table.periodLength(0));
+        assertEquals(130, table.endDay(1));
+    }
+
+    @Test
+    public void endOnStartDayCountsAsOneDayPeriod() {
+        CycleTable table = CycleTable.pair(records("start", 50), records("end", 50));
+
+        assertEquals(1, table.periodLength(0));
+    }
+
+    @Test
+    public void refillReusesTableAndAcceptsUnsortedInput() {
+        CycleTable table = CycleTable.pair(records("start", 1, 2, 3, 4, 5), records("end", 3));
+        List<PeriodRecord> unsorted = records("start", 40, 10);
+        Collections.reverse(unsorted);
+        table.fill(unsorted, null);
+
+        assertEquals(2, table.size());
+        assertEquals(10, table.startDay(0));
+        assertEquals(40, table.startDay(1));
+        assertEquals(PeriodCalculator.NO_DAY, table.endDay(1));
+    }
+
+    @Test
+    public void mergeJoinMatchesNestedLoop() {
+        Random random = new Random(42L);
+        CycleTable table = new CycleTable();
+        for (int trial = 0; trial < 500; trial++) {
+            int[] startDays = randomDays(random, random.nextInt(40));
+            int[] endDays = randomDays(random, random.nextInt(40));
+            table.fill(records("start", startDays), records("end", endDays));
+
+            int[] sortedStarts = startDays.clone();
+            Arrays.sort(sortedStarts);
+            for (int i = 0; i < sortedStarts.length; i++) {
+                int next = i + 1 < sortedStarts.length ? sortedStarts[i + 1] : Integer.MAX_VALUE;
+                int expected = PeriodCalculator.NO_DAY;
+                for (int end : endDays) {
+                    if (end >= sortedStarts[i] && end < next
+                            && (expected == PeriodCalculator.NO_DAY || end < expected)) {
+                        expected = end;
+                    }
+                }
+                assertEquals("trial " + trial + " start " + i, expected, table.endDay(i));
+            }
+        }
+    }
+
+    private static int[] randomDays(Random random, int count) {
+        int[] days = new int[count];
+        for (int i = 0; i < count; i++) {
+            days[i] = 19_000 + random.nextInt(600);
+        }
+        return days;
+    }
+
+    /** 按 DAO 的顺序（day 倒序）构造记录。 */
+    private static List<PeriodRecord> records(String type, int... days) {
+        int[] sorted = days.clone();
+        Arrays.sort(sorted);
+        List<PeriodRecord> records = new ArrayList<>();
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            PeriodRecord record = new PeriodRecord();
+            record.day = sorted[i];
+            record.type = type;
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,91 @@
+package com.xie.mydaning.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DateUtilsTest {
+    private final Locale originalLocale = Locale.getDefault();
+
+    @After
+    public void restoreLocale() {
+        Locale.setDefault(originalLocale);
+        DateUtils.onLocaleChanged();
+    }
+
+    @Test
+    public void formatsMatchSimpleDateFormat() {
+        int day = (int) LocalDate.of(2024, 3, 9).toEpochDay();
+        Date date = DateUtils.fromEpochDay(day);
+
+        assertEquals(new SimpleDateFormat("yyyy年MM月dd日", Locale.getDefault()).format(date), DateUtils.formatDate(date));
+        assertEquals("2024年03月09日", DateUtils.formatDate(day));
+        assertEquals("03月09日", DateUtils.formatMonthDay(day));
+        assertEquals("09", DateUtils.formatDay(day));
+        assertEquals("03月", DateUtils.formatMonth(day));
+    }
+
+    @Test
+    public void repeatedFormattingReturnsCachedString() {
+        int day = (int) LocalDate.of(2023, 12, 31).toEpochDay();
+
+        assertSame(DateUtils.formatDay(day), DateUtils.formatDay(day));
+        assertSame(DateUtils.formatMonth(day), DateUtils.formatMonth(DateUtils.fromEpochDay(day)));
+    }
+
+    @Test
+    public void slotCollisionStillFormatsCorrectDay() {
+        int day = (int) LocalDate.of(2024, 1, 15).toEpochDay();
+        String first = DateUtils.formatDate(day);
+        String collided = DateUtils.formatDate(day + 1024);
+
+        assertNotEquals(first, collided);
+        assertEquals(first, DateUtils.formatDate(day));
+    }
+
+    @Test
+    public void localeChangeDropsCache() {
+        int day = (int) LocalDate.of(2024, 5, 1).toEpochDay();
+        String before = DateUtils.formatDay(day);
+
+        Locale.setDefault(Locale.GERMANY.equals(originalLocale) ? Locale.FRANCE : Locale.GERMANY);
+        assertNotSame(before, DateUtils.formatDay(day));
+    }
+
+    @Test
+    public void concurrentFormattingIsConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    for (int day = 18_000; day < 22_000; day++) {
+                        String expected = LocalDate.ofEpochDay(day).getDayOfMonth() < 10
+                                ? "0" + LocalDate.ofEpochDay(day).getDayOfMonth()
+                                : String.valueOf(LocalDate.ofEpochDay(day).getDayOfMonth());
+                        if (!expected.equals(DateUtils.formatDay(day))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
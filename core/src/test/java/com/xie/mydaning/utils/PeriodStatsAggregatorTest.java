@@ -0,0 +1,167 @@
+package com.xie.mydaning.utils;
+
+import com.xie.mydaning.data.PeriodRecord;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 随机差分测试：对同一份历史，增量统计与 PeriodCalculator 全量计算的结果必须一致。
+ */
+public class PeriodStatsAggregatorTest {
+    private static final int TODAY = 20_000;
+
+    @Test
+    public void syncMatchesCalculatorUnderRandomEdits() {
+        Random random = new Random(20240501L);
+        for (int trial = 0; trial < 200; trial++) {
+            List<Integer> startDays = new ArrayList<>();
+            List<Integer> endDays = new ArrayList<>();
+            seedHistory(random, startDays, endDays, random.nextInt(30));
+
+            PeriodStatsAggregator aggregator = new PeriodStatsAggregator();
+            for (int step = 0; step < 60; step++) {
+                applyRandomEdit(random, startDays, endDays);
+                List<PeriodRecord> starts = toRecords(startDays, "start");
+                List<PeriodRecord> ends = toRecords(endDays, "end");
+                aggregator.sync(starts, ends);
+                assertSameStatistics("trial " + trial + " step " + step, aggregator, starts, ends);
+            }
+        }
+    }
+
+    @Test
+    public void directUpdatesMatchCalculator() {
+        Random random = new Random(7L);
+        List<Integer> startDays = new ArrayList<>();
+        List<Integer> endDays = new ArrayList<>();
+        PeriodStatsAggregator aggregator = new PeriodStatsAggregator();
+        aggregator.rebuild(toRecords(startDays, "start"), toRecords(endDays, "end"));
+
+        for (int step = 0; step < 2_000; step++) {
+            int op = random.nextInt(4);
+            if (op == 0 || startDays.isEmpty()) {
+                int day = randomDay(random, startDays);
+                startDays.add(day);
+                aggregator.addStart(day);
+            } else if (op == 1) {
+                int day = startDays.remove(random.nextInt(startDays.size()));
+                aggregator.removeStart(day);
+            } else if (op == 2 || endDays.isEmpty()) {
+                int day = randomDay(random, startDays) + random.nextInt(8);
+                endDays.add(day);
+                aggregator.addEnd(day);
+            } else {
+                int day = endDays.remove(random.nextInt(endDays.size()));
+                aggregator.removeEnd(day);
+            }
+            assertSameStatistics("step " + step, aggregator,
+                    toRecords(startDays, "start"), toRecords(endDays, "end"));
+        }
+    }
+
+    private static void seedHistory(Random random, List<Integer> startDays, List<Integer> endDays, int cycles) {
+        int day = TODAY - cycles * 30 - random.nextInt(30);
+        for (int i = 0; i < cycles; i++) {
+            startDays.add(day);
+            if (random.nextInt(5) != 0) {
+                endDays.add(day + 3 + random.nextInt(5));
+            }
+            day += 20 + random.nextInt(20);
+        }
+    }
+
+    private static void applyRandomEdit(Random random, List<Integer> startDays, List<Integer> endDays) {
+        switch (random.nextInt(7)) {
+            case 0: // 记录最新一次经期开始
+                startDays.add(latest(startDays) + 15 + random.nextInt(50));
+                break;
+            case 1: // 补录历史中间的开始
+                startDays.add(randomDay(random, startDays));
+                break;
+            case 2:
+                if (!startDays.isEmpty()) {
+                    startDays.remove(random.nextInt(startDays.size()));
+                }
+                break;
+            case 3: // 把一条开始改成结束
+                if (!startDays.isEmpty()) {
+                    endDays.add(startDays.remove(random.nextInt(startDays.size())));
+                }
+                break;
+            case 4:
+                endDays.add(randomDay(random, startDays) + random.nextInt(10));
+                break;
+            case 5:
+                if (!endDays.isEmpty()) {
+                    endDays.remove(random.nextInt(endDays.size()));
+                }
+                break;
+            default: // 一次改动多条，走重建
+                for (int i = 0; i < 3; i++) {
+                    startDays.add(randomDay(random, startDays));
+                }
+                break;
+        }
+    }
+
+    private static int randomDay(Random random, List<Integer> days) {
+        return latest(days) - random.nextInt(400);
+    }
+
+    private static int latest(List<Integer> days) {
+        return days.isEmpty() ? TODAY - 100 : Collections.max(days);
+    }
+
+    private static List<PeriodRecord> toRecords(List<Integer> days, String type) {
+        List<Integer> sorted = new ArrayList<>(days);
+        sorted.sort(Collections.reverseOrder());
+        List<PeriodRecord> records = new ArrayList<>();
+        for (int day : sorted) {
+            PeriodRecord record = new PeriodRecord();
+            record.day = day;
+            record.type = type;
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static void assertSameStatistics(String message, PeriodStatsAggregator aggregator,
+                                             List<PeriodRecord> starts, List<PeriodRecord> ends) {
+        int averageCycle = PeriodCalculator.calculateAverageCycle(starts);
+        assertEquals(message, averageCycle, aggregator.getAverageCycle());
+        assertEquals(message, PeriodCalculator.calculateAveragePeriod(starts, ends), aggregator.getAveragePeriod());
+        assertEquals(message, PeriodCalculator.calculateRegularity(starts), aggregator.getRegularity());
+
+        CyclePredictor predictor = new WeightedRecentPredictor();
+        PeriodCalculator.CurrentPeriodStatus expected =
+                PeriodCalculator.getCurrentPeriodStatus(starts, ends, predictor, TODAY);
+        PeriodCalculator.CurrentPeriodStatus actual = aggregator.getCurrentPeriodStatus(TODAY, predictor);
+        assertEquals(message, expected.isActive, actual.isActive);
+        assertEquals(message, expected.currentDay, actual.currentDay);
+        assertEquals(message, expected.startDay, actual.startDay);
+        assertEquals(message, expected.endDay, actual.endDay);
+        assertEquals(message, expected.nextPeriodDay, actual.nextPeriodDay);
+
+        // 开机恢复只读开始日重新预测，必须和首页看到的一致
+        int[] startDays = new int[starts.size()];
+        for (int i = 0; i < startDays.length; i++) {
+            startDays[i] = starts.get(startDays.length - 1 - i).day;
+        }
+        CyclePredictor.Forecast direct = PeriodCalculator.forecast(startDays, startDays.length, predictor);
+        CyclePredictor.Forecast incremental = aggregator.getForecast(predictor);
+        if (incremental == null) {
+            assertNull(message, direct);
+        } else {
+            assertEquals(message, incremental.day, direct.day);
+            assertEquals(message, incremental.earliestDay, direct.earliestDay);
+            assertEquals(message, incremental.latestDay, direct.latestDay);
+        }
+    }
+}
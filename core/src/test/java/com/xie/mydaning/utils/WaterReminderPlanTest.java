@@ -0,0 +1,100 @@
+package com.xie.mydaning.utils;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.Assert.*;
+
+public class WaterReminderPlanTest {
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    // 3 月 1 日 7:00 开启，网格点在每个整点和半点
+    private static final long ANCHOR = at(ZONE, 2024, 3, 1, 7, 0);
+
+    private static long at(ZoneId zone, int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void nextDueOutsideQuietHoursIsOneIntervalLater() {
+        WaterReminderPlan plan = new WaterReminderPlan(ANCHOR, 30, 15, 22 * 60, 8 * 60);
+
+        assertEquals(at(ZONE, 2024, 3, 10, 10, 30), plan.nextDue(at(ZONE, 2024, 3, 10, 10, 0), ZONE));
+        assertEquals(15 * WaterReminderPlan.MINUTE_MILLIS, plan.toleranceMillis);
+    }
+
+    @Test
+    public void toleranceIsCappedAtHalfTheInterval() {
+        assertEquals(30_000L, new WaterReminderPlan(ANCHOR, 1, 15, 0, 0).toleranceMillis);
+        assertEquals(5 * WaterReminderPlan.MINUTE_MILLIS, new WaterReminderPlan(ANCHOR, 10, 15, 0, 0).toleranceMillis);
+        assertEquals(0L, new WaterReminderPlan(ANCHOR, 1, 0, 0, 0).toleranceMillis);
+    }
+
+    @Test
+    public void overnightQuietHoursDeferToNextMorning() {
+        WaterReminderPlan plan = new WaterReminderPlan(ANCHOR, 30, 15, 22 * 60, 8 * 60);
+
+        // 21:45 之后的下一次落在 22:15，顺延到第二天 8:00
+        assertEquals(at(ZONE, 2024, 3, 11, 8, 0), plan.nextDue(at(ZONE, 2024, 3, 10, 21, 45), ZONE));
+        // 午夜之后的部分顺延到当天 8:00
+        assertEquals(at(ZONE, 2024, 3, 11, 8, 0), plan.nextDue(at(ZONE, 2024, 3, 11, 2, 0), ZONE));
+        assertTrue(plan.isQuiet(at(ZONE, 2024, 3, 10, 22, 0), ZONE));
+        assertFalse(plan.isQuiet(at(ZONE, 2024, 3, 11, 8, 0), ZONE));
+    }
+
+    @Test
+    public void daytimeQuietHoursDoNotWrap() {
+        WaterReminderPlan plan = new WaterReminderPlan(ANCHOR, 60, 0, 12 * 60, 14 * 60);
+
+        assertEquals(at(ZONE, 2024, 3, 10, 14, 0), plan.nextDue(at(ZONE, 2024, 3, 10, 11, 30), ZONE));
+        assertEquals(at(ZONE, 2024, 3, 10, 23, 0), plan.nextDue(at(ZONE, 2024, 3, 10, 22, 30), ZONE));
+    }
+
+    @Test
+    public void lateFireKeepsFollowingRemindersOnGrid() {
+        WaterReminderPlan plan = new WaterReminderPlan(at(ZONE, 2024, 3, 10, 9, 7), 30, 15, 22 * 60, 8 * 60);
+
+        // 9:37 那次晚了 11 分钟，下一次仍是 10:07 而不是 10:18
+        assertEquals(at(ZONE, 2024, 3, 10, 10, 7), plan.nextDue(at(ZONE, 2024, 3, 10, 9, 48), ZONE));
+        // 晚了超过一个间隔时跳过错过的网格点
+        assertEquals(at(ZONE, 2024, 3, 10, 11, 7), plan.nextDue(at(ZONE, 2024, 3, 10, 10, 40), ZONE));
+        // 正好在网格点上时取下一个
+        assertEquals(at(ZONE, 2024, 3, 10, 10, 37), plan.nextDue(at(ZONE, 2024, 3, 10, 10, 7), ZONE));
+    }
+
+    @Test
+    public void quietHoursResumeOnFirstGridPointAfterwards() {
+        WaterReminderPlan plan = new WaterReminderPlan(at(ZONE, 2024, 3, 10, 9, 20), 45, 0, 22 * 60, 8 * 60);
+
+        // 网格 21:20、22:05（免打扰）……第二天 8:00 之后第一个网格点是 8:35
+        assertEquals(at(ZONE, 2024, 3, 11, 8, 35), plan.nextDue(at(ZONE, 2024, 3, 10, 21, 20), ZONE));
+    }
+
+    @Test
+    public void intervalLongerThanDaytimeStillFindsSlot() {
+        // 间隔 17 小时、白天只有 2 小时，要跨好几天才碰到白天的网格点
+        WaterReminderPlan plan = new WaterReminderPlan(at(ZONE, 2024, 3, 10, 12, 0), 17 * 60, 0, 14 * 60, 12 * 60);
+
+        long due = plan.nextDue(at(ZONE, 2024, 3, 10, 12, 0), ZONE);
+        assertFalse(plan.isQuiet(due, ZONE));
+        assertEquals(0, (due - plan.anchorMillis) % plan.intervalMillis);
+    }
+
+    @Test
+    public void equalBoundsDisableQuietHours() {
+        WaterReminderPlan plan = new WaterReminderPlan(ANCHOR, 1, 0, 0, 0);
+
+        assertFalse(plan.hasQuietHours());
+        assertEquals(at(ZONE, 2024, 3, 10, 3, 1), plan.nextDue(at(ZONE, 2024, 3, 10, 3, 0), ZONE));
+    }
+
+    @Test
+    public void quietEndInsideDaylightSavingGapMovesPastIt() {
+        // 2024-03-10 纽约 2:00 跳到 3:00
+        WaterReminderPlan plan = new WaterReminderPlan(at(NEW_YORK, 2024, 3, 9, 7, 0), 30, 0, 22 * 60, 2 * 60 + 30);
+
+        assertEquals(at(NEW_YORK, 2024, 3, 10, 3, 30), plan.nextDue(at(NEW_YORK, 2024, 3, 9, 23, 0), NEW_YORK));
+    }
+}